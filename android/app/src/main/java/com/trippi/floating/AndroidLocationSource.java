@@ -0,0 +1,70 @@
+package com.bikemessenger.floating;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.location.LocationManager;
+import android.util.Log;
+
+/**
+ * Last known location from the system LocationManager, for {location} and
+ * {speed} placeholders. Never requests updates: it only reads fixes other
+ * apps (or the passive provider) already have, and returns nothing when
+ * location permission has not been granted.
+ *
+ * The overlay service is not a location foreground service, so while the
+ * app is in the background Android 10+ may report no fix; the placeholders
+ * then render "--".
+ */
+final class AndroidLocationSource implements TemplateEngine.LocationSource {
+
+    private static final String TAG = "AndroidLocationSource";
+    private static final String[] PROVIDERS = {
+        LocationManager.GPS_PROVIDER,
+        LocationManager.NETWORK_PROVIDER,
+        LocationManager.PASSIVE_PROVIDER,
+    };
+
+    private final Context context;
+    private final LocationManager locationManager;
+
+    AndroidLocationSource(Context context) {
+        this.context = context;
+        this.locationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+    }
+
+    @Override
+    public boolean lastKnown(double[] out) {
+        if (locationManager == null || !hasPermission(context)) return false;
+
+        Location best = null;
+        try {
+            for (String provider : PROVIDERS) {
+                Location candidate = locationManager.getLastKnownLocation(provider);
+                if (candidate != null && (best == null || candidate.getTime() > best.getTime())) {
+                    best = candidate;
+                }
+            }
+        } catch (SecurityException e) {
+            Log.w(TAG, "Location permission revoked", e);
+            return false;
+        }
+        if (best == null) return false;
+
+        out[0] = best.getLatitude();
+        out[1] = best.getLongitude();
+        out[2] = best.hasSpeed() ? best.getSpeed() : Double.NaN;
+        return true;
+    }
+
+    /**
+     * @return true if either fine or coarse location has been granted
+     */
+    static boolean hasPermission(Context context) {
+        return context.checkSelfPermission(Manifest.permission.ACCESS_FINE_LOCATION)
+                == PackageManager.PERMISSION_GRANTED
+            || context.checkSelfPermission(Manifest.permission.ACCESS_COARSE_LOCATION)
+                == PackageManager.PERMISSION_GRANTED;
+    }
+}
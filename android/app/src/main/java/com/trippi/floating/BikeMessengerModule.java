@@ -1,6 +1,7 @@
 package com.bikemessenger.floating;
 
 import android.app.Activity;
+import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Build;
@@ -21,6 +22,10 @@ import com.facebook.react.bridge.ReactMethod;
  * FloatingWindowService. Provides methods to:
  * - Start/stop the floating overlay widget
  * - Update messages in the floating widget
+ * - Start/stop/update named overlay profiles (group ride, commute, ...)
+ * - Map button gestures to quick-send messages
+ * - Feed live trip values to message templates
+ * - Report received alerts to the overlay and notification
  * - Check/request overlay permission
  * - Minimize the app (move to background)
  */
@@ -47,6 +52,19 @@ public class BikeMessengerModule extends ReactContextBaseJavaModule {
      */
     @ReactMethod
     public void startFloatingWidget(String messagesJson, Promise promise) {
+        startProfile(OverlayProfile.DEFAULT_ID, messagesJson, promise);
+    }
+
+    /**
+     * Start (or show) a named overlay profile. Each profile gets its own
+     * floating button and message list; all profiles share one service.
+     *
+     * @param profileId Profile name, e.g. "group-ride"
+     * @param messagesJson JSON string of messages array
+     * @param promise Promise resolved with true on success
+     */
+    @ReactMethod
+    public void startProfile(String profileId, String messagesJson, Promise promise) {
         try {
             ReactApplicationContext context = getReactApplicationContext();
 
@@ -60,7 +78,8 @@ public class BikeMessengerModule extends ReactContextBaseJavaModule {
             }
 
             Intent serviceIntent = new Intent(context, FloatingWindowService.class);
-            serviceIntent.putExtra("messages", messagesJson);
+            serviceIntent.putExtra(FloatingWindowService.EXTRA_PROFILE, profileId);
+            serviceIntent.putExtra(FloatingWindowService.EXTRA_MESSAGES, messagesJson);
 
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
                 context.startForegroundService(serviceIntent);
@@ -68,7 +87,7 @@ public class BikeMessengerModule extends ReactContextBaseJavaModule {
                 context.startService(serviceIntent);
             }
 
-            Log.i(TAG, "Floating widget service started");
+            Log.i(TAG, "Floating widget profile started: " + profileId);
             promise.resolve(true);
         } catch (Exception e) {
             Log.e(TAG, "Failed to start floating widget", e);
@@ -96,6 +115,31 @@ public class BikeMessengerModule extends ReactContextBaseJavaModule {
         }
     }
 
+    /**
+     * Remove one overlay profile. The service stops once no profiles remain.
+     *
+     * @param profileId Profile name passed to startProfile
+     * @param promise Promise resolved with true on success
+     */
+    @ReactMethod
+    public void stopProfile(String profileId, Promise promise) {
+        try {
+            ReactApplicationContext context = getReactApplicationContext();
+            Intent serviceIntent = new Intent(context, FloatingWindowService.class);
+            serviceIntent.putExtra(FloatingWindowService.EXTRA_ACTION,
+                FloatingWindowService.ACTION_STOP_PROFILE);
+            serviceIntent.putExtra(FloatingWindowService.EXTRA_PROFILE, profileId);
+
+            context.startService(serviceIntent);
+
+            Log.i(TAG, "Floating widget profile stopped: " + profileId);
+            promise.resolve(true);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to stop profile", e);
+            promise.reject("STOP_FAILED", e.getMessage());
+        }
+    }
+
     /**
      * Update messages in the running floating widget
      *
@@ -104,15 +148,29 @@ public class BikeMessengerModule extends ReactContextBaseJavaModule {
      */
     @ReactMethod
     public void updateMessages(String messagesJson, Promise promise) {
+        updateProfileMessages(OverlayProfile.DEFAULT_ID, messagesJson, promise);
+    }
+
+    /**
+     * Update messages of one running overlay profile
+     *
+     * @param profileId Profile name passed to startProfile
+     * @param messagesJson Updated JSON string of messages
+     * @param promise Promise resolved with true on success
+     */
+    @ReactMethod
+    public void updateProfileMessages(String profileId, String messagesJson, Promise promise) {
         try {
             ReactApplicationContext context = getReactApplicationContext();
             Intent serviceIntent = new Intent(context, FloatingWindowService.class);
-            serviceIntent.putExtra("action", "update_messages");
-            serviceIntent.putExtra("messages", messagesJson);
+            serviceIntent.putExtra(FloatingWindowService.EXTRA_ACTION,
+                FloatingWindowService.ACTION_UPDATE_MESSAGES);
+            serviceIntent.putExtra(FloatingWindowService.EXTRA_PROFILE, profileId);
+            serviceIntent.putExtra(FloatingWindowService.EXTRA_MESSAGES, messagesJson);
 
             context.startService(serviceIntent);
 
-            Log.i(TAG, "Messages updated in floating widget");
+            Log.i(TAG, "Messages updated in floating widget profile: " + profileId);
             promise.resolve(true);
         } catch (Exception e) {
             Log.e(TAG, "Failed to update messages", e);
@@ -120,6 +178,70 @@ public class BikeMessengerModule extends ReactContextBaseJavaModule {
         }
     }
 
+    /**
+     * Map floating button gestures to messages. Keys are "swipe_left",
+     * "swipe_right", "swipe_up", "swipe_down" and "long_press"; values are
+     * message ids. The running service picks up the change from
+     * SharedPreferences, so this works whether or not the widget is showing.
+     *
+     * @param shortcutsJson JSON object of gesture -> message id
+     * @param promise Promise resolved with true on success
+     */
+    @ReactMethod
+    public void setGestureShortcuts(String shortcutsJson, Promise promise) {
+        try {
+            getReactApplicationContext()
+                .getSharedPreferences(GestureShortcuts.PREFS_NAME, Context.MODE_PRIVATE)
+                .edit()
+                .putString(GestureShortcuts.PREF_KEY, shortcutsJson)
+                .apply();
+
+            Log.i(TAG, "Gesture shortcuts updated");
+            promise.resolve(true);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to update gesture shortcuts", e);
+            promise.reject("SHORTCUTS_FAILED", e.getMessage());
+        }
+    }
+
+    /**
+     * Forward an alert received from another rider to the native side, where
+     * it updates the notification and the floating button's unread badge.
+     * Ignored when the floating service is not running.
+     *
+     * @param messageText Received alert text
+     */
+    @ReactMethod
+    public void notifyMessageReceived(String messageText) {
+        OverlayResources resources = OverlayResources.active();
+        if (resources != null) {
+            resources.sender().receive(messageText, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Reset trip counters at the start of a ride ({elapsed}, {sent} restart from zero)
+     */
+    @ReactMethod
+    public void startTrip() {
+        TripCounters.get().startTrip(System.currentTimeMillis());
+    }
+
+    /**
+     * Update live trip values used by message templates such as
+     * "ETA {eta}" or "Fuel at {distance} km". Pass a negative value for
+     * unknown; the placeholder then renders as "--".
+     *
+     * @param distanceKm Distance travelled this trip, in km
+     * @param etaMinutes Minutes to destination
+     */
+    @ReactMethod
+    public void updateTripCounters(double distanceKm, double etaMinutes) {
+        TripCounters trip = TripCounters.get();
+        trip.setDistanceMeters(distanceKm < 0 ? TripCounters.UNKNOWN : Math.round(distanceKm * 1000));
+        trip.setEtaMinutes(etaMinutes < 0 ? TripCounters.UNKNOWN : Math.round(etaMinutes));
+    }
+
     /**
      * Check if the app has SYSTEM_ALERT_WINDOW permission
      *
@@ -0,0 +1,214 @@
+package com.bikemessenger.floating;
+
+import android.animation.ValueAnimator;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Outline;
+import android.graphics.Paint;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+import android.view.View;
+import android.view.ViewOutlineProvider;
+import android.view.animation.OvershootInterpolator;
+
+/**
+ * FloatingButtonView
+ *
+ * The always-on floating button drawn directly on Canvas: accent circle,
+ * icon glyph and unread badge in a single view with no text layout.
+ *
+ * Pressed and dragging states are animated with ViewPropertyAnimator
+ * (scale/alpha live on the RenderNode, so they do not redraw the content).
+ * While dragging, the view is backed by a hardware layer.
+ *
+ * Paints are owned by OverlayResources and shared between every profile's
+ * button; they are only read here, never mutated.
+ */
+final class FloatingButtonView extends View {
+
+    private static final String ICON = "🏍";
+    private static final int RING_COLOR = Color.WHITE;
+    private static final int BADGE_COLOR = Color.parseColor("#E74C3C");
+
+    private static final float PRESSED_SCALE = 0.9f;
+    private static final float DRAGGING_ALPHA = 0.85f;
+    private static final long STATE_ANIM_MS = 120;
+    private static final long BADGE_ANIM_MS = 250;
+
+    // Oval outline so elevation casts a round shadow without a background drawable
+    private static final ViewOutlineProvider OVAL_OUTLINE = new ViewOutlineProvider() {
+        @Override
+        public void getOutline(View view, Outline outline) {
+            FloatingButtonView button = (FloatingButtonView) view;
+            outline.setOval(
+                Math.round(button.centerX - button.radius),
+                Math.round(button.centerY - button.radius),
+                Math.round(button.centerX + button.radius),
+                Math.round(button.centerY + button.radius));
+        }
+    };
+
+    /**
+     * Paint set shared by all floating buttons
+     */
+    static final class Paints {
+        final Paint circle = new Paint(Paint.ANTI_ALIAS_FLAG);
+        final Paint ring = new Paint(Paint.ANTI_ALIAS_FLAG);
+        final Paint icon = new Paint(Paint.ANTI_ALIAS_FLAG);
+        final Paint badge = new Paint(Paint.ANTI_ALIAS_FLAG);
+        final Paint badgeText = new Paint(Paint.ANTI_ALIAS_FLAG);
+        final Paint.FontMetrics iconMetrics = new Paint.FontMetrics();
+        final Paint.FontMetrics badgeMetrics = new Paint.FontMetrics();
+
+        Paints(Context context) {
+            DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+
+            circle.setColor(OverlayResources.ACCENT_COLOR);
+
+            ring.setColor(RING_COLOR);
+            ring.setStyle(Paint.Style.STROKE);
+            ring.setStrokeWidth(2 * metrics.density);
+
+            icon.setTextAlign(Paint.Align.CENTER);
+            icon.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 24, metrics));
+            icon.getFontMetrics(iconMetrics);
+
+            badge.setColor(BADGE_COLOR);
+
+            badgeText.setColor(Color.WHITE);
+            badgeText.setTextAlign(Paint.Align.CENTER);
+            badgeText.setFakeBoldText(true);
+            badgeText.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 10, metrics));
+            badgeText.getFontMetrics(badgeMetrics);
+        }
+    }
+
+    private final Paints paints;
+
+    private int unreadCount = 0;
+    private String badgeLabel = "";
+    private boolean dragging = false;
+
+    // Cached geometry, recomputed in onSizeChanged
+    private float centerX, centerY, radius;
+    private float iconBaseline;
+    private float badgeRadius, badgeCenterX, badgeCenterY, badgeBaseline;
+    private float badgeScale = 1f;
+
+    private ValueAnimator badgeAnimator;
+
+    FloatingButtonView(Context context, Paints paints) {
+        super(context);
+        this.paints = paints;
+        setOutlineProvider(OVAL_OUTLINE);
+        setElevation(8 * getResources().getDisplayMetrics().density);
+    }
+
+    /**
+     * Show a badge with the number of unread alerts; 0 hides it
+     */
+    void setUnreadCount(int count) {
+        if (count == unreadCount) return;
+        boolean grew = count > unreadCount;
+        unreadCount = count;
+        badgeLabel = count > 99 ? "99+" : Integer.toString(count);
+
+        if (grew) {
+            animateBadgePop();
+        } else {
+            invalidate();
+        }
+    }
+
+    int getUnreadCount() {
+        return unreadCount;
+    }
+
+    /**
+     * Finger down/up feedback
+     */
+    void setPressedState(boolean pressed) {
+        float scale = pressed ? PRESSED_SCALE : 1f;
+        animate().scaleX(scale).scaleY(scale).setDuration(STATE_ANIM_MS).start();
+    }
+
+    /**
+     * Drag start/end: hardware layer while the window is moving, plus a
+     * highlight ring so the rider can see the button has been picked up.
+     */
+    void setDragging(boolean isDragging) {
+        if (dragging == isDragging) return;
+        dragging = isDragging;
+
+        if (isDragging) {
+            setLayerType(LAYER_TYPE_HARDWARE, null);
+            animate().alpha(DRAGGING_ALPHA).scaleX(1f).scaleY(1f)
+                .setDuration(STATE_ANIM_MS)
+                .start();
+        } else {
+            animate().alpha(1f).scaleX(1f).scaleY(1f)
+                .setDuration(STATE_ANIM_MS)
+                .withEndAction(() -> {
+                    if (!dragging) setLayerType(LAYER_TYPE_NONE, null);
+                })
+                .start();
+        }
+        invalidate();
+    }
+
+    private void animateBadgePop() {
+        if (badgeAnimator == null) {
+            badgeAnimator = ValueAnimator.ofFloat(0.4f, 1f);
+            badgeAnimator.setDuration(BADGE_ANIM_MS);
+            badgeAnimator.setInterpolator(new OvershootInterpolator());
+            badgeAnimator.addUpdateListener(animation -> {
+                badgeScale = 0.4f + 0.6f * animation.getAnimatedFraction();
+                invalidate();
+            });
+        }
+        badgeAnimator.cancel();
+        badgeAnimator.start();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        centerX = w / 2f;
+        centerY = h / 2f;
+        radius = Math.min(w, h) / 2f - paints.ring.getStrokeWidth();
+
+        Paint.FontMetrics iconMetrics = paints.iconMetrics;
+        iconBaseline = centerY - (iconMetrics.ascent + iconMetrics.descent) / 2f;
+
+        badgeRadius = radius * 0.32f;
+        badgeCenterX = centerX + radius * 0.7f;
+        badgeCenterY = centerY - radius * 0.7f;
+        Paint.FontMetrics badgeMetrics = paints.badgeMetrics;
+        badgeBaseline = badgeCenterY - (badgeMetrics.ascent + badgeMetrics.descent) / 2f;
+
+        invalidateOutline();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        canvas.drawCircle(centerX, centerY, radius, paints.circle);
+        if (dragging) {
+            canvas.drawCircle(centerX, centerY, radius, paints.ring);
+        }
+        canvas.drawText(ICON, centerX, iconBaseline, paints.icon);
+
+        if (unreadCount > 0) {
+            float r = badgeRadius * badgeScale;
+            canvas.drawCircle(badgeCenterX, badgeCenterY, r, paints.badge);
+            canvas.drawText(badgeLabel, badgeCenterX, badgeBaseline, paints.badgeText);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (badgeAnimator != null) badgeAnimator.cancel();
+        animate().cancel();
+    }
+}
@@ -1,35 +1,32 @@
 package com.bikemessenger.floating;
 
-import android.app.Notification;
-import android.app.NotificationChannel;
-import android.app.NotificationManager;
 import android.app.Service;
+import android.content.ComponentCallbacks;
+import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
 import android.content.pm.ServiceInfo;
-import android.graphics.Color;
-import android.graphics.PixelFormat;
-import android.graphics.drawable.GradientDrawable;
+import android.content.res.Configuration;
+import android.graphics.Insets;
+import android.graphics.Rect;
+import android.hardware.display.DisplayManager;
 import android.os.Build;
 import android.os.IBinder;
+import android.os.StrictMode;
 import android.util.DisplayMetrics;
 import android.util.Log;
-import android.view.Gravity;
-import android.view.LayoutInflater;
-import android.view.MotionEvent;
-import android.view.View;
-import android.view.ViewGroup;
+import android.view.Display;
+import android.view.WindowInsets;
 import android.view.WindowManager;
-import android.widget.ImageView;
-import android.widget.LinearLayout;
-import android.widget.ScrollView;
-import android.widget.TextView;
+import android.view.WindowMetrics;
 import android.widget.Toast;
 
-import org.json.JSONArray;
 import org.json.JSONException;
-import org.json.JSONObject;
 
-import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * FloatingWindowService
@@ -40,41 +37,46 @@ import java.util.ArrayList;
  *
  * Uses WindowManager with TYPE_APPLICATION_OVERLAY to draw over other apps.
  * Requires SYSTEM_ALERT_WINDOW permission.
+ *
+ * The service hosts one or more named OverlayProfiles, each with its own
+ * button, position and messages. Profiles share one OverlayResources pool
+ * (worker thread, paints, drawable states).
+ *
+ * Threading: only view work runs on the main looper. Parsing, logging and
+ * broadcasts go through OverlayWorker, and message lists come back to the
+ * UI thread as immutable MessageSnapshots.
  */
 public class FloatingWindowService extends Service {
 
     private static final String TAG = "FloatingWindowService";
-    private static final int BUTTON_SIZE_DP = 60;
-    private static final int MENU_WIDTH_DP = 220;
-    private static final String NOTIFICATION_CHANNEL_ID = "floating_overlay_channel";
-    private static final int NOTIFICATION_ID = 1001;
-
-    private WindowManager windowManager;
-    private View floatingButton;
-    private View floatingMenu;
-    private boolean isMenuVisible = false;
 
-    private WindowManager.LayoutParams buttonParams;
-    private WindowManager.LayoutParams menuParams;
+    static final String EXTRA_ACTION = "action";
+    static final String EXTRA_MESSAGES = "messages";
+    static final String EXTRA_PROFILE = "profile";
+    static final String ACTION_UPDATE_MESSAGES = "update_messages";
+    static final String ACTION_STOP_PROFILE = "stop_profile";
 
-    private ArrayList<MessageData> messages = new ArrayList<>();
+    private WindowManager windowManager;
+    private Context uiContext;
+    private OverlayResources resources;
+    private OverlayWorker worker;
+    private QuickSendNotification notification;
+    private final Map<String, OverlayProfile> profiles = new LinkedHashMap<>();
+    // Button stacking slots in use; a stopped profile frees its slot for the next one
+    private final BitSet usedSlots = new BitSet();
+
+    private GestureShortcuts shortcuts = GestureShortcuts.NONE;
+    private SharedPreferences prefs;
+    private final SharedPreferences.OnSharedPreferenceChangeListener prefsListener =
+        (sharedPrefs, key) -> {
+            if (GestureShortcuts.PREF_KEY.equals(key)) {
+                loadShortcuts();
+            }
+        };
     private int screenWidth;
     private int screenHeight;
-
-    // Message data holder
-    static class MessageData {
-        String id;
-        String text;
-        String icon;
-        String color;
-
-        MessageData(String id, String text, String icon, String color) {
-            this.id = id;
-            this.text = text;
-            this.icon = icon;
-            this.color = color;
-        }
-    }
+    // Main thread policy in place before ours, put back in onDestroy
+    private StrictMode.ThreadPolicy previousThreadPolicy;
 
     @Override
     public IBinder onBind(Intent intent) {
@@ -84,12 +86,91 @@ public class FloatingWindowService extends Service {
     @Override
     public void onCreate() {
         super.onCreate();
-        windowManager = (WindowManager) getSystemService(WINDOW_SERVICE);
+        enableStrictModeForDebugBuilds();
+        resources = new OverlayResources(this);
+        worker = resources.worker();
+        resources.sender().setListener(sendListener);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            notification = new QuickSendNotification(this, worker);
+        }
+        loadShortcuts();
+
+        // On R+, overlay views and WindowMetrics come from a window context
+        // tied to the display, so they track rotation and fold changes.
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            DisplayManager displayManager = getSystemService(DisplayManager.class);
+            Display display = displayManager.getDisplay(Display.DEFAULT_DISPLAY);
+            uiContext = createDisplayContext(display).createWindowContext(
+                WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY, null);
+            // The window context's resources update separately from the service's,
+            // so display changes are taken from its own callbacks
+            uiContext.registerComponentCallbacks(windowContextCallbacks);
+        } else {
+            uiContext = this;
+        }
+        windowManager = (WindowManager) uiContext.getSystemService(WINDOW_SERVICE);
+        updateScreenSize();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        // On R+ the window context may not have its new metrics yet; see windowContextCallbacks
+        if (uiContext == this) {
+            onDisplayChanged();
+        }
+    }
+
+    /**
+     * Config changes delivered to the window context, after its metrics are updated
+     */
+    private final ComponentCallbacks windowContextCallbacks = new ComponentCallbacks() {
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+            onDisplayChanged();
+        }
+
+        @Override
+        public void onLowMemory() {
+        }
+    };
 
-        DisplayMetrics metrics = new DisplayMetrics();
-        windowManager.getDefaultDisplay().getMetrics(metrics);
-        screenWidth = metrics.widthPixels;
-        screenHeight = metrics.heightPixels;
+    private void onDisplayChanged() {
+        int oldWidth = screenWidth;
+        int oldHeight = screenHeight;
+        if (!updateScreenSize()) return;
+
+        for (OverlayProfile profile : profiles.values()) {
+            profile.onScreenSizeChanged(oldWidth, oldHeight);
+        }
+    }
+
+    /**
+     * Read the usable screen size (excluding system bars).
+     *
+     * @return true if it changed
+     */
+    private boolean updateScreenSize() {
+        int width;
+        int height;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            WindowMetrics metrics = windowManager.getCurrentWindowMetrics();
+            Rect bounds = metrics.getBounds();
+            Insets insets = metrics.getWindowInsets()
+                .getInsetsIgnoringVisibility(WindowInsets.Type.systemBars());
+            width = bounds.width() - insets.left - insets.right;
+            height = bounds.height() - insets.top - insets.bottom;
+        } else {
+            DisplayMetrics metrics = new DisplayMetrics();
+            windowManager.getDefaultDisplay().getMetrics(metrics);
+            width = metrics.widthPixels;
+            height = metrics.heightPixels;
+        }
+
+        boolean changed = width != screenWidth || height != screenHeight;
+        screenWidth = width;
+        screenHeight = height;
+        return changed;
     }
 
     @Override
@@ -97,502 +178,257 @@ public class FloatingWindowService extends Service {
         // Required: foreground service must call startForeground() within ~5s on Android O+
         startForegroundNotification();
 
+        String profileId = OverlayProfile.DEFAULT_ID;
+        String action = null;
+        String messagesJson = null;
         if (intent != null) {
-            String action = intent.getStringExtra("action");
-            if ("update_messages".equals(action)) {
-                String messagesJson = intent.getStringExtra("messages");
-                parseMessages(messagesJson);
-                if (isMenuVisible) {
-                    updateMenuContent();
-                }
-                return START_STICKY;
-            }
+            action = intent.getStringExtra(EXTRA_ACTION);
+            messagesJson = intent.getStringExtra(EXTRA_MESSAGES);
+            String requested = intent.getStringExtra(EXTRA_PROFILE);
+            if (requested != null) profileId = requested;
+        }
 
-            String messagesJson = intent.getStringExtra("messages");
-            if (messagesJson != null) {
-                parseMessages(messagesJson);
+        if (ACTION_STOP_PROFILE.equals(action)) {
+            stopProfile(profileId);
+            return START_STICKY;
+        }
+
+        if (ACTION_UPDATE_MESSAGES.equals(action)) {
+            OverlayProfile profile = profiles.get(profileId);
+            if (profile != null) {
+                profile.loadMessages(messagesJson);
             }
+            return START_STICKY;
         }
 
-        createFloatingButton();
+        OverlayProfile profile = getOrCreateProfile(profileId);
+        if (messagesJson != null) {
+            profile.loadMessages(messagesJson);
+        }
+        profile.show();
         return START_STICKY;
     }
 
-    /**
-     * Start as foreground service so the system does not kill us (required on Android O+).
-     * Without this, startForegroundService() leads to a crash and the overlay never appears.
-     */
-    private void startForegroundNotification() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationChannel channel = new NotificationChannel(
-                NOTIFICATION_CHANNEL_ID,
-                "Floating widget",
-                NotificationManager.IMPORTANCE_LOW
-            );
-            channel.setDescription("Shows when the bike messenger floating button is active");
-            NotificationManager nm = getSystemService(NotificationManager.class);
-            if (nm != null) nm.createNotificationChannel(channel);
-
-            Notification.Builder builder = new Notification.Builder(this, NOTIFICATION_CHANNEL_ID)
-                .setContentTitle("Trippi")
-                .setContentText("Floating widget active")
-                .setSmallIcon(android.R.drawable.ic_dialog_info)
-                .setPriority(Notification.PRIORITY_LOW)
-                .setOngoing(true);
-
-            Notification notification = builder.build();
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
-                startForeground(NOTIFICATION_ID, notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_SPECIAL_USE);
-            } else {
-                startForeground(NOTIFICATION_ID, notification);
-            }
+    private OverlayProfile getOrCreateProfile(String profileId) {
+        OverlayProfile profile = profiles.get(profileId);
+        if (profile == null) {
+            int slot = usedSlots.nextClearBit(0);
+            usedSlots.set(slot);
+            profile = new OverlayProfile(profileId, slot, this, resources, windowManager);
+            profiles.put(profileId, profile);
         }
+        return profile;
     }
 
-    private void parseMessages(String json) {
-        messages.clear();
-        if (json == null) return;
-
-        try {
-            JSONArray array = new JSONArray(json);
-            for (int i = 0; i < array.length(); i++) {
-                JSONObject obj = array.getJSONObject(i);
-                messages.add(new MessageData(
-                    obj.getString("id"),
-                    obj.getString("text"),
-                    obj.getString("icon"),
-                    obj.getString("color")
-                ));
-            }
-        } catch (JSONException e) {
-            Log.e(TAG, "Failed to parse messages JSON", e);
+    /**
+     * Remove one profile's windows; the service stops with its last profile
+     */
+    private void stopProfile(String profileId) {
+        OverlayProfile profile = profiles.remove(profileId);
+        if (profile != null) {
+            profile.destroy();
+            usedSlots.clear(profile.slot);
+        }
+        if (profiles.isEmpty()) {
+            stopSelf();
+        } else {
+            publishQuickSends(profiles.values().iterator().next());
         }
     }
 
     /**
-     * Create the draggable floating button overlay
+     * Start as foreground service so the system does not kill us (required on Android O+).
+     * Without this, startForegroundService() leads to a crash and the overlay never appears.
+     * Every call passes the latest published notification, so starting,
+     * updating or stopping a profile keeps the quick-send actions and status.
      */
-    private void createFloatingButton() {
-        if (floatingButton != null) return;
-
-        int buttonSizePx = dpToPx(BUTTON_SIZE_DP);
-
-        // Create circular button
-        floatingButton = new View(this) {
-            @Override
-            protected void onDraw(android.graphics.Canvas canvas) {
-                super.onDraw(canvas);
-            }
-        };
-
-        // Style the button
-        GradientDrawable buttonBg = new GradientDrawable();
-        buttonBg.setShape(GradientDrawable.OVAL);
-        buttonBg.setColor(Color.parseColor("#FF6B35")); // Accent color
-        floatingButton.setBackground(buttonBg);
-        floatingButton.setElevation(dpToPx(8));
-
-        // Create an ImageView for the icon (motorcycle)
-        // Since we can't use vector icons directly, we use a TextView with Unicode
-        LinearLayout buttonLayout = new LinearLayout(this);
-        buttonLayout.setOrientation(LinearLayout.VERTICAL);
-        buttonLayout.setGravity(Gravity.CENTER);
-
-        TextView iconText = new TextView(this);
-        iconText.setText("🏍");
-        iconText.setTextSize(24);
-        iconText.setGravity(Gravity.CENTER);
-
-        buttonLayout.addView(iconText);
-        buttonLayout.setBackground(buttonBg);
-        buttonLayout.setElevation(dpToPx(8));
-
-        // Window params for the floating button
-        int overlayType = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
-            ? WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY
-            : WindowManager.LayoutParams.TYPE_PHONE;
-
-        buttonParams = new WindowManager.LayoutParams(
-            buttonSizePx,
-            buttonSizePx,
-            overlayType,
-            WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE,
-            PixelFormat.TRANSLUCENT
-        );
-
-        buttonParams.gravity = Gravity.TOP | Gravity.START;
-        buttonParams.x = screenWidth - buttonSizePx - dpToPx(16);
-        buttonParams.y = screenHeight - buttonSizePx - dpToPx(200);
-
-        // Touch listener for drag + tap
-        buttonLayout.setOnTouchListener(new View.OnTouchListener() {
-            private int initialX, initialY;
-            private float initialTouchX, initialTouchY;
-            private boolean isDragging = false;
-            private long touchStartTime;
-
-            @Override
-            public boolean onTouch(View v, MotionEvent event) {
-                switch (event.getAction()) {
-                    case MotionEvent.ACTION_DOWN:
-                        initialX = buttonParams.x;
-                        initialY = buttonParams.y;
-                        initialTouchX = event.getRawX();
-                        initialTouchY = event.getRawY();
-                        isDragging = false;
-                        touchStartTime = System.currentTimeMillis();
-                        return true;
-
-                    case MotionEvent.ACTION_MOVE:
-                        float dx = event.getRawX() - initialTouchX;
-                        float dy = event.getRawY() - initialTouchY;
-
-                        if (Math.abs(dx) > 10 || Math.abs(dy) > 10) {
-                            isDragging = true;
-                        }
-
-                        if (isDragging) {
-                            buttonParams.x = initialX + (int) dx;
-                            buttonParams.y = initialY + (int) dy;
-
-                            // Clamp to screen bounds
-                            buttonParams.x = Math.max(0, Math.min(buttonParams.x,
-                                screenWidth - buttonSizePx));
-                            buttonParams.y = Math.max(0, Math.min(buttonParams.y,
-                                screenHeight - buttonSizePx));
-
-                            try {
-                                windowManager.updateViewLayout(buttonLayout, buttonParams);
-                            } catch (Exception e) {
-                                Log.e(TAG, "Failed to update button layout", e);
-                            }
-                        }
-                        return true;
-
-                    case MotionEvent.ACTION_UP:
-                        if (!isDragging && System.currentTimeMillis() - touchStartTime < 300) {
-                            // Tap - toggle menu
-                            toggleMenu();
-                        } else if (isDragging) {
-                            // Snap to nearest edge
-                            int snapX = buttonParams.x < screenWidth / 2
-                                ? dpToPx(16)
-                                : screenWidth - buttonSizePx - dpToPx(16);
-                            buttonParams.x = snapX;
-
-                            try {
-                                windowManager.updateViewLayout(buttonLayout, buttonParams);
-                            } catch (Exception e) {
-                                Log.e(TAG, "Failed to snap button", e);
-                            }
-                        }
-                        isDragging = false;
-                        return true;
-                }
-                return false;
-            }
-        });
+    private void startForegroundNotification() {
+        if (notification == null) return;
 
-        try {
-            windowManager.addView(buttonLayout, buttonParams);
-            floatingButton = buttonLayout;
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to add floating button", e);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+            startForeground(QuickSendNotification.NOTIFICATION_ID, notification.notification(),
+                ServiceInfo.FOREGROUND_SERVICE_TYPE_SPECIAL_USE);
+        } else {
+            startForeground(QuickSendNotification.NOTIFICATION_ID, notification.notification());
         }
     }
 
     /**
-     * Toggle the floating menu visibility
+     * A profile swapped in a new snapshot. The first profile's top ranked
+     * messages become the notification's quick-send actions.
      */
-    private void toggleMenu() {
-        if (isMenuVisible) {
-            hideMenu();
-        } else {
-            showMenu();
-        }
+    void onSnapshotLoaded(OverlayProfile profile) {
+        if (profiles.isEmpty() || profiles.values().iterator().next() != profile) return;
+        publishQuickSends(profile);
+    }
+
+    private void publishQuickSends(OverlayProfile profile) {
+        if (notification == null) return;
+        final MessageSnapshot snapshot = profile.snapshot();
+        worker.execute(() -> notification.setQuickSends(
+            snapshot.topRanked(QuickSendNotification.MAX_ACTIONS)));
     }
 
     /**
-     * Show the message menu above the floating button
+     * Runs on the worker after every send/receive, whatever surface it came from
      */
-    private void showMenu() {
-        if (floatingMenu != null) {
-            hideMenu();
+    private final MessageSender.Listener sendListener = new MessageSender.Listener() {
+        @Override
+        public void onSent(String messageId, String text, long timestamp, int source) {
+            if (notification != null) notification.onSent(text);
+
+            // Overlay sends get a toast; notification sends must not draw anything
+            if (source == MessageSender.SOURCE_OVERLAY) {
+                worker.postToMain(() -> Toast.makeText(FloatingWindowService.this,
+                    "Sent: " + text,
+                    Toast.LENGTH_SHORT).show());
+            }
+            Log.i(TAG, "Message sent: " + text);
         }
 
-        int menuWidthPx = dpToPx(MENU_WIDTH_DP);
-        int maxMenuHeight = (int) (screenHeight * 0.5);
-
-        // Build menu layout
-        LinearLayout menuLayout = new LinearLayout(this);
-        menuLayout.setOrientation(LinearLayout.VERTICAL);
-
-        GradientDrawable menuBg = new GradientDrawable();
-        menuBg.setCornerRadius(dpToPx(16));
-        menuBg.setColor(Color.parseColor("#1A1F2E"));
-        menuBg.setStroke(dpToPx(2), Color.parseColor("#FF6B35"));
-        menuLayout.setBackground(menuBg);
-        menuLayout.setElevation(dpToPx(12));
-        menuLayout.setPadding(dpToPx(8), dpToPx(8), dpToPx(8), dpToPx(8));
-
-        // Header
-        TextView header = new TextView(this);
-        header.setText("🏍 Quick Send");
-        header.setTextColor(Color.WHITE);
-        header.setTextSize(14);
-        header.setPadding(dpToPx(12), dpToPx(8), dpToPx(12), dpToPx(8));
-        header.setTypeface(null, android.graphics.Typeface.BOLD);
-        menuLayout.addView(header);
-
-        // Divider
-        View divider = new View(this);
-        divider.setBackgroundColor(Color.parseColor("#30363D"));
-        LinearLayout.LayoutParams dividerParams = new LinearLayout.LayoutParams(
-            ViewGroup.LayoutParams.MATCH_PARENT, dpToPx(1));
-        dividerParams.setMargins(0, dpToPx(4), 0, dpToPx(4));
-        menuLayout.addView(divider, dividerParams);
-
-        // Scrollable message list
-        ScrollView scrollView = new ScrollView(this);
-        LinearLayout messageList = new LinearLayout(this);
-        messageList.setOrientation(LinearLayout.VERTICAL);
-        messageList.setPadding(0, dpToPx(4), 0, dpToPx(4));
-
-        for (final MessageData msg : messages) {
-            LinearLayout msgRow = createMessageRow(msg);
-            messageList.addView(msgRow);
+        @Override
+        public void onReceived(String text, long timestamp) {
+            if (notification != null) notification.onReceived(text);
+
+            worker.postToMain(() -> {
+                for (OverlayProfile profile : profiles.values()) {
+                    profile.onAlertReceived();
+                }
+            });
         }
+    };
 
-        scrollView.addView(messageList);
-        LinearLayout.LayoutParams scrollParams = new LinearLayout.LayoutParams(
-            ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
-        scrollParams.weight = 1;
-        menuLayout.addView(scrollView, scrollParams);
-
-        // Edit button
-        View divider2 = new View(this);
-        divider2.setBackgroundColor(Color.parseColor("#30363D"));
-        LinearLayout.LayoutParams divider2Params = new LinearLayout.LayoutParams(
-            ViewGroup.LayoutParams.MATCH_PARENT, dpToPx(1));
-        divider2Params.setMargins(0, dpToPx(4), 0, dpToPx(4));
-        menuLayout.addView(divider2, divider2Params);
-
-        TextView editBtn = new TextView(this);
-        editBtn.setText("✏️ Edit Messages");
-        editBtn.setTextColor(Color.parseColor("#FF6B35"));
-        editBtn.setTextSize(13);
-        editBtn.setGravity(Gravity.CENTER);
-        editBtn.setPadding(dpToPx(12), dpToPx(10), dpToPx(12), dpToPx(10));
-        editBtn.setTypeface(null, android.graphics.Typeface.BOLD);
-        editBtn.setOnClickListener(v -> {
-            // Launch the main React Native activity
-            hideMenu();
-            Intent launchIntent = getPackageManager()
-                .getLaunchIntentForPackage(getPackageName());
-            if (launchIntent != null) {
-                launchIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-                startActivity(launchIntent);
-            }
-        });
-        menuLayout.addView(editBtn);
-
-        // Position menu above the button
-        int overlayType = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
-            ? WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY
-            : WindowManager.LayoutParams.TYPE_PHONE;
-
-        menuParams = new WindowManager.LayoutParams(
-            menuWidthPx,
-            WindowManager.LayoutParams.WRAP_CONTENT,
-            overlayType,
-            WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE,
-            PixelFormat.TRANSLUCENT
-        );
-
-        menuParams.gravity = Gravity.TOP | Gravity.START;
-        // Position to the left of button if button is on right side
-        if (buttonParams.x > screenWidth / 2) {
-            menuParams.x = buttonParams.x - menuWidthPx + dpToPx(BUTTON_SIZE_DP);
+    /**
+     * In debug builds, enforce the threading model: disk or network access
+     * on the main thread from overlay code crashes the app, so work that
+     * belongs on the OverlayWorker can't slip through. The main thread is
+     * shared with React Native, whose violations are only logged. The
+     * previous policy is restored in onDestroy.
+     */
+    private void enableStrictModeForDebugBuilds() {
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) == 0) return;
+
+        StrictMode.ThreadPolicy.Builder policy = new StrictMode.ThreadPolicy.Builder()
+            .detectDiskReads()
+            .detectDiskWrites()
+            .detectNetwork()
+            .detectCustomSlowCalls()
+            .penaltyLog();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            policy.penaltyListener(getMainExecutor(), violation -> {
+                if (isOverlayViolation(violation)) {
+                    throw new IllegalStateException(
+                        "Overlay code touched disk or network on the main thread", violation);
+                }
+            });
         } else {
-            menuParams.x = buttonParams.x;
+            // No listener before P to scope by caller; at least network access is fatal
+            policy.penaltyDeathOnNetwork();
         }
-        // Position above the button
-        menuParams.y = Math.max(dpToPx(50),
-            buttonParams.y - dpToPx(300)); // Approximate menu height
-
-        try {
-            windowManager.addView(menuLayout, menuParams);
-            floatingMenu = menuLayout;
-            isMenuVisible = true;
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to show menu", e);
+
+        previousThreadPolicy = StrictMode.getThreadPolicy();
+        StrictMode.setThreadPolicy(policy.build());
+    }
+
+    private static boolean isOverlayViolation(Throwable violation) {
+        String overlayPackage = FloatingWindowService.class.getPackage().getName();
+        for (StackTraceElement frame : violation.getStackTrace()) {
+            if (frame.getClassName().startsWith(overlayPackage)) return true;
         }
+        return false;
     }
 
     /**
-     * Create a single message row for the floating menu
+     * Read gesture shortcuts from SharedPreferences on the worker thread.
+     * Called at startup and whenever React Native writes a new mapping.
      */
-    private LinearLayout createMessageRow(final MessageData msg) {
-        LinearLayout row = new LinearLayout(this);
-        row.setOrientation(LinearLayout.HORIZONTAL);
-        row.setGravity(Gravity.CENTER_VERTICAL);
-        row.setPadding(dpToPx(8), dpToPx(6), dpToPx(8), dpToPx(6));
-
-        GradientDrawable rowBg = new GradientDrawable();
-        rowBg.setCornerRadius(dpToPx(12));
-        rowBg.setColor(Color.parseColor("#161B22"));
-        row.setBackground(rowBg);
-
-        LinearLayout.LayoutParams rowParams = new LinearLayout.LayoutParams(
-            ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
-        rowParams.setMargins(0, dpToPx(3), 0, dpToPx(3));
-        row.setLayoutParams(rowParams);
-
-        // Colored icon circle
-        TextView iconView = new TextView(this);
-        iconView.setText(getEmojiForIcon(msg.icon));
-        iconView.setTextSize(20);
-        iconView.setGravity(Gravity.CENTER);
-
-        GradientDrawable iconBg = new GradientDrawable();
-        iconBg.setCornerRadius(dpToPx(12));
-        try {
-            iconBg.setColor(Color.parseColor(msg.color));
-        } catch (Exception e) {
-            iconBg.setColor(Color.parseColor("#FF6B35"));
-        }
-        iconView.setBackground(iconBg);
-
-        LinearLayout.LayoutParams iconParams = new LinearLayout.LayoutParams(
-            dpToPx(42), dpToPx(42));
-        iconParams.setMargins(0, 0, dpToPx(10), 0);
-        row.addView(iconView, iconParams);
-
-        // Message text
-        TextView textView = new TextView(this);
-        textView.setText(msg.text);
-        textView.setTextColor(Color.WHITE);
-        textView.setTextSize(13);
-        textView.setTypeface(null, android.graphics.Typeface.BOLD);
-        textView.setMaxLines(1);
-
-        LinearLayout.LayoutParams textParams = new LinearLayout.LayoutParams(
-            0, ViewGroup.LayoutParams.WRAP_CONTENT, 1);
-        row.addView(textView, textParams);
-
-        // Tap to send
-        row.setOnClickListener(v -> {
-            sendMessageFromOverlay(msg);
-            // Flash feedback
-            GradientDrawable flashBg = new GradientDrawable();
-            flashBg.setCornerRadius(dpToPx(12));
-            flashBg.setColor(Color.parseColor("#27AE60"));
-            row.setBackground(flashBg);
-
-            row.postDelayed(() -> {
-                GradientDrawable normalBg = new GradientDrawable();
-                normalBg.setCornerRadius(dpToPx(12));
-                normalBg.setColor(Color.parseColor("#161B22"));
-                row.setBackground(normalBg);
-            }, 500);
-        });
-
-        return row;
+    private void loadShortcuts() {
+        worker.submit(() -> {
+            if (prefs == null) {
+                prefs = getSharedPreferences(GestureShortcuts.PREFS_NAME, MODE_PRIVATE);
+                prefs.registerOnSharedPreferenceChangeListener(prefsListener);
+            }
+            try {
+                return GestureShortcuts.parse(prefs.getString(GestureShortcuts.PREF_KEY, null));
+            } catch (JSONException e) {
+                Log.e(TAG, "Failed to parse gesture shortcuts", e);
+                return GestureShortcuts.NONE;
+            }
+        }, loaded -> shortcuts = loaded);
     }
 
     /**
-     * Map Material Community Icon names to emoji approximations
-     * (In a full implementation, you'd use a proper icon font or drawable)
+     * @return message id mapped to a GestureRecognizer gesture, or null
      */
-    private String getEmojiForIcon(String iconName) {
-        switch (iconName) {
-            case "car-brake-alert": return "🛑";
-            case "gas-station": return "⛽";
-            case "map-marker-alert": return "📍";
-            case "coffee": return "☕";
-            case "speedometer": return "💨";
-            case "speedometer-slow": return "🐌";
-            case "alert-octagon": return "🚨";
-            case "hand-back-left": return "✋";
-            case "motorbike": return "🏍";
-            case "navigation": return "🧭";
-            case "food": return "🍔";
-            case "wrench": return "🔧";
-            case "camera": return "📷";
-            case "phone": return "📞";
-            case "thumb-up": return "👍";
-            case "flag-checkered": return "🏁";
-            case "weather-rainy": return "🌧";
-            case "home": return "🏠";
-            default: return "📢";
-        }
+    String shortcutFor(int gesture) {
+        return shortcuts.messageIdFor(gesture);
     }
 
     /**
-     * Send a message from the floating overlay
+     * Context used to inflate overlay views (a window context on R+)
      */
-    private void sendMessageFromOverlay(MessageData msg) {
-        // Show toast confirmation
-        Toast.makeText(this,
-            "Sent: " + msg.text,
-            Toast.LENGTH_SHORT).show();
-
-        // In production, this would:
-        // 1. Send via FCM/WebSocket
-        // 2. Broadcast to React Native via Intent/Event
-        // 3. Update message stats
-
-        // Broadcast to React Native
-        Intent intent = new Intent("com.bikemessenger.MESSAGE_SENT");
-        intent.putExtra("messageId", msg.id);
-        intent.putExtra("messageText", msg.text);
-        intent.putExtra("timestamp", System.currentTimeMillis());
-        sendBroadcast(intent);
-
-        Log.i(TAG, "Message sent from overlay: " + msg.text);
+    Context getUiContext() {
+        return uiContext;
+    }
+
+    int getScreenWidth() {
+        return screenWidth;
+    }
+
+    int getScreenHeight() {
+        return screenHeight;
     }
 
     /**
-     * Hide the floating menu
+     * Bring the React Native activity to the front
      */
-    private void hideMenu() {
-        if (floatingMenu != null) {
-            try {
-                windowManager.removeView(floatingMenu);
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to remove menu", e);
-            }
-            floatingMenu = null;
-            isMenuVisible = false;
+    void openApp() {
+        Intent launchIntent = getPackageManager()
+            .getLaunchIntentForPackage(getPackageName());
+        if (launchIntent != null) {
+            launchIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+            startActivity(launchIntent);
         }
     }
 
     /**
-     * Update menu content with new messages
+     * Send a message from the floating overlay through the shared send path
+     *
+     * @param template msg's template from the profile's snapshot, or null to
+     *                 compile its text at send time
      */
-    private void updateMenuContent() {
-        if (isMenuVisible) {
-            hideMenu();
-            showMenu();
+    void sendMessageFromOverlay(MessageData msg, MessageTemplate template) {
+        long now = System.currentTimeMillis();
+        if (template != null) {
+            resources.sender().send(msg.id, template, now, MessageSender.SOURCE_OVERLAY);
+        } else {
+            resources.sender().send(msg.id, msg.text, now, MessageSender.SOURCE_OVERLAY);
         }
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
-        hideMenu();
-        if (floatingButton != null) {
-            try {
-                windowManager.removeView(floatingButton);
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to remove floating button", e);
+        if (uiContext != this) {
+            uiContext.unregisterComponentCallbacks(windowContextCallbacks);
+        }
+        for (OverlayProfile profile : profiles.values()) {
+            profile.destroy();
+        }
+        profiles.clear();
+        usedSlots.clear();
+        if (notification != null) {
+            notification.close();
+        }
+        worker.execute(() -> {
+            if (prefs != null) {
+                prefs.unregisterOnSharedPreferenceChangeListener(prefsListener);
             }
-            floatingButton = null;
+        });
+        resources.release();
+        if (previousThreadPolicy != null) {
+            StrictMode.setThreadPolicy(previousThreadPolicy);
+            previousThreadPolicy = null;
         }
     }
-
-    private int dpToPx(int dp) {
-        float density = getResources().getDisplayMetrics().density;
-        return Math.round(dp * density);
-    }
 }
@@ -0,0 +1,157 @@
+package com.bikemessenger.floating;
+
+/**
+ * GestureRecognizer
+ *
+ * Allocation-free state machine that classifies the floating button's touch
+ * stream into taps, drags, long presses and directional swipes. It has no
+ * Android dependencies: callers feed raw coordinates and timestamps, which
+ * keeps it testable with synthetic event streams.
+ *
+ * Long presses need a clock tick while the finger is down; the caller
+ * schedules onTick() at getLongPressTimeout() after onDown(). A long press
+ * that then moves past the touch slop still becomes a drag.
+ */
+final class GestureRecognizer {
+
+    // Results returned from the on*() methods
+    static final int NONE = 0;
+    static final int TAP = 1;
+    static final int DRAG_START = 2;
+    static final int DRAG = 3;
+    static final int DRAG_END = 4;
+    static final int LONG_PRESS = 5;
+    static final int SWIPE_LEFT = 6;
+    static final int SWIPE_RIGHT = 7;
+    static final int SWIPE_UP = 8;
+    static final int SWIPE_DOWN = 9;
+
+    private static final int STATE_IDLE = 0;
+    private static final int STATE_PRESSED = 1;
+    private static final int STATE_DRAGGING = 2;
+    private static final int STATE_LONG_PRESSED = 3;
+
+    private final float touchSlop;
+    private final long tapTimeout;
+    private final long longPressTimeout;
+    private final float swipeMinDistance;
+    private final long swipeMaxDuration;
+
+    private int state = STATE_IDLE;
+    private float downX, downY;
+    private float lastDx, lastDy;
+    private long downTime;
+
+    /**
+     * @param touchSlop movement in px before a press becomes a drag
+     * @param tapTimeout max press duration in ms that still counts as a tap
+     * @param longPressTimeout hold duration in ms that triggers a long press
+     * @param swipeMinDistance min travel in px for a drag to count as a swipe
+     * @param swipeMaxDuration max duration in ms for a drag to count as a swipe
+     */
+    GestureRecognizer(float touchSlop, long tapTimeout, long longPressTimeout,
+                      float swipeMinDistance, long swipeMaxDuration) {
+        this.touchSlop = touchSlop;
+        this.tapTimeout = tapTimeout;
+        this.longPressTimeout = longPressTimeout;
+        this.swipeMinDistance = swipeMinDistance;
+        this.swipeMaxDuration = swipeMaxDuration;
+    }
+
+    int onDown(float x, float y, long time) {
+        state = STATE_PRESSED;
+        downX = x;
+        downY = y;
+        lastDx = 0;
+        lastDy = 0;
+        downTime = time;
+        return NONE;
+    }
+
+    int onMove(float x, float y, long time) {
+        lastDx = x - downX;
+        lastDy = y - downY;
+
+        switch (state) {
+            case STATE_PRESSED:
+            case STATE_LONG_PRESSED:
+                if (Math.abs(lastDx) > touchSlop || Math.abs(lastDy) > touchSlop) {
+                    state = STATE_DRAGGING;
+                    return DRAG_START;
+                }
+                return NONE;
+
+            case STATE_DRAGGING:
+                return DRAG;
+
+            default:
+                return NONE;
+        }
+    }
+
+    int onUp(float x, float y, long time) {
+        lastDx = x - downX;
+        lastDy = y - downY;
+        int previous = state;
+        state = STATE_IDLE;
+
+        switch (previous) {
+            case STATE_PRESSED:
+                return time - downTime < tapTimeout ? TAP : NONE;
+
+            case STATE_DRAGGING:
+                return time - downTime <= swipeMaxDuration ? classifySwipe() : DRAG_END;
+
+            default:
+                return NONE;
+        }
+    }
+
+    int onCancel() {
+        int previous = state;
+        state = STATE_IDLE;
+        return previous == STATE_DRAGGING ? DRAG_END : NONE;
+    }
+
+    /**
+     * Clock tick while the finger is down; reports LONG_PRESS once when the
+     * press has been held in place for longPressTimeout.
+     */
+    int onTick(long time) {
+        if (state == STATE_PRESSED && time - downTime >= longPressTimeout) {
+            state = STATE_LONG_PRESSED;
+            return LONG_PRESS;
+        }
+        return NONE;
+    }
+
+    private int classifySwipe() {
+        float absDx = Math.abs(lastDx);
+        float absDy = Math.abs(lastDy);
+        if (Math.max(absDx, absDy) < swipeMinDistance) {
+            return DRAG_END;
+        }
+        if (absDx >= absDy) {
+            return lastDx < 0 ? SWIPE_LEFT : SWIPE_RIGHT;
+        }
+        return lastDy < 0 ? SWIPE_UP : SWIPE_DOWN;
+    }
+
+    static boolean isSwipe(int gesture) {
+        return gesture >= SWIPE_LEFT && gesture <= SWIPE_DOWN;
+    }
+
+    /** Horizontal offset of the last event from the down position */
+    float getDx() {
+        return lastDx;
+    }
+
+    /** Vertical offset of the last event from the down position */
+    float getDy() {
+        return lastDy;
+    }
+
+    long getLongPressTimeout() {
+        return longPressTimeout;
+    }
+}
@@ -0,0 +1,64 @@
+package com.bikemessenger.floating;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * GestureShortcuts
+ *
+ * Immutable mapping from GestureRecognizer gestures to message ids, set from
+ * React Native and persisted in SharedPreferences so the overlay can send
+ * without building the menu.
+ */
+final class GestureShortcuts {
+
+    static final String PREFS_NAME = "floating_overlay";
+    static final String PREF_KEY = "gesture_shortcuts";
+
+    private static final int SLOT_COUNT = GestureRecognizer.SWIPE_DOWN + 1;
+
+    static final GestureShortcuts NONE = new GestureShortcuts(new String[SLOT_COUNT]);
+
+    // JSON keys, indexed by GestureRecognizer result
+    private static final String[] KEYS = new String[SLOT_COUNT];
+
+    static {
+        KEYS[GestureRecognizer.LONG_PRESS] = "long_press";
+        KEYS[GestureRecognizer.SWIPE_LEFT] = "swipe_left";
+        KEYS[GestureRecognizer.SWIPE_RIGHT] = "swipe_right";
+        KEYS[GestureRecognizer.SWIPE_UP] = "swipe_up";
+        KEYS[GestureRecognizer.SWIPE_DOWN] = "swipe_down";
+    }
+
+    private final String[] messageIds;
+
+    private GestureShortcuts(String[] messageIds) {
+        this.messageIds = messageIds;
+    }
+
+    /**
+     * Parse e.g. {"swipe_left": "msg-1", "long_press": "msg-4"}.
+     * Unknown keys are ignored.
+     */
+    static GestureShortcuts parse(String json) throws JSONException {
+        if (json == null || json.isEmpty()) return NONE;
+
+        JSONObject obj = new JSONObject(json);
+        String[] ids = new String[SLOT_COUNT];
+        for (int gesture = 0; gesture < KEYS.length; gesture++) {
+            String key = KEYS[gesture];
+            if (key != null && obj.has(key) && !obj.isNull(key)) {
+                ids[gesture] = obj.getString(key);
+            }
+        }
+        return new GestureShortcuts(ids);
+    }
+
+    /**
+     * @return message id mapped to the gesture, or null if none
+     */
+    String messageIdFor(int gesture) {
+        if (gesture < 0 || gesture >= messageIds.length) return null;
+        return messageIds[gesture];
+    }
+}
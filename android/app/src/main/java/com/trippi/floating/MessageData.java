@@ -0,0 +1,27 @@
+package com.bikemessenger.floating;
+
+/**
+ * Immutable message shown in the floating menu.
+ * Instances are created on the worker thread and shared with the UI thread.
+ */
+final class MessageData {
+    final String id;
+    final String text;
+    final String icon;
+    final String color;
+    final int order;
+    final int sendCount;
+
+    MessageData(String id, String text, String icon, String color) {
+        this(id, text, icon, color, 0, 0);
+    }
+
+    MessageData(String id, String text, String icon, String color, int order, int sendCount) {
+        this.id = id;
+        this.text = text;
+        this.icon = icon;
+        this.color = color;
+        this.order = order;
+        this.sendCount = sendCount;
+    }
+}
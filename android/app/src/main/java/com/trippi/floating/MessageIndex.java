@@ -0,0 +1,236 @@
+package com.bikemessenger.floating;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * MessageIndex
+ *
+ * Prefix search over message text and icon names for the overlay menu.
+ * Tokens are kept in one sorted array with a postings list per token, so a
+ * query term is a binary search plus a scan of the matching prefix range.
+ *
+ * The index is immutable and built on the worker thread when a snapshot
+ * arrives. Building is incremental: tokenized messages are cached by text
+ * and icon and reused from the previous index, so a new snapshot only
+ * tokenizes messages that actually changed. Searching never touches the
+ * message strings, only the token array.
+ */
+final class MessageIndex {
+
+    static final MessageIndex EMPTY = new MessageIndex(
+        0, new String[0], new int[] {0}, new int[0], new HashMap<String, String[]>());
+
+    private final int messageCount;
+    // Sorted unique tokens; postings for tokens[i] are postings[postingStart[i] .. postingStart[i + 1])
+    private final String[] tokens;
+    private final int[] postingStart;
+    private final int[] postings;
+    // (text, icon) -> tokens, carried over to the next build
+    private final Map<String, String[]> tokenCache;
+
+    private MessageIndex(int messageCount, String[] tokens, int[] postingStart, int[] postings,
+                         Map<String, String[]> tokenCache) {
+        this.messageCount = messageCount;
+        this.tokens = tokens;
+        this.postingStart = postingStart;
+        this.postings = postings;
+        this.tokenCache = tokenCache;
+    }
+
+    /**
+     * Index a snapshot, reusing tokenization from the previous index
+     */
+    static MessageIndex build(MessageSnapshot snapshot, MessageIndex previous) {
+        List<MessageData> messages = snapshot.messages;
+        Map<String, String[]> cache = new HashMap<>(messages.size() * 2);
+        Map<String, List<Integer>> byToken = new HashMap<>();
+
+        for (int i = 0; i < messages.size(); i++) {
+            MessageData msg = messages.get(i);
+            String key = msg.text + '\u0000' + msg.icon;
+            String[] messageTokens = previous.tokenCache.get(key);
+            if (messageTokens == null) {
+                messageTokens = cache.get(key);
+            }
+            if (messageTokens == null) {
+                messageTokens = tokenize(msg.text, msg.icon);
+            }
+            cache.put(key, messageTokens);
+
+            for (String token : messageTokens) {
+                List<Integer> list = byToken.get(token);
+                if (list == null) {
+                    list = new ArrayList<>(2);
+                    byToken.put(token, list);
+                }
+                list.add(i);
+            }
+        }
+
+        String[] sorted = byToken.keySet().toArray(new String[0]);
+        Arrays.sort(sorted);
+        int[] start = new int[sorted.length + 1];
+        int total = 0;
+        for (int t = 0; t < sorted.length; t++) {
+            start[t] = total;
+            total += byToken.get(sorted[t]).size();
+        }
+        start[sorted.length] = total;
+
+        int[] postings = new int[total];
+        for (int t = 0; t < sorted.length; t++) {
+            List<Integer> list = byToken.get(sorted[t]);
+            for (int p = 0; p < list.size(); p++) {
+                postings[start[t] + p] = list.get(p);
+            }
+        }
+        return new MessageIndex(messages.size(), sorted, start, postings, cache);
+    }
+
+    /**
+     * Lowercase letter/digit runs of the text and icon name, deduplicated
+     */
+    static String[] tokenize(String text, String icon) {
+        List<String> out = new ArrayList<>();
+        addTokens(text, out);
+        addTokens(icon, out);
+        return out.toArray(new String[0]);
+    }
+
+    private static void addTokens(String source, List<String> out) {
+        if (source == null) return;
+        String lower = source.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean word = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                String token = lower.substring(start, i);
+                if (!out.contains(token)) out.add(token);
+                start = -1;
+            }
+        }
+    }
+
+    int messageCount() {
+        return messageCount;
+    }
+
+    Searcher newSearcher() {
+        return new Searcher(this);
+    }
+
+    /**
+     * Reusable per-menu query state. Holds the match mask and the ordered
+     * match list (what the menu's adapter shows), so keystrokes do not
+     * allocate beyond lowercasing the query. Not thread-safe; used on the
+     * main thread.
+     */
+    static final class Searcher {
+        private final MessageIndex index;
+        private final boolean[] matches;
+        private final boolean[] termMatches;
+        // Indices of matching messages in snapshot order; the first matchCount are valid
+        private final int[] matchList;
+        private int matchCount;
+
+        private Searcher(MessageIndex index) {
+            this.index = index;
+            this.matches = new boolean[index.messageCount];
+            this.termMatches = new boolean[index.messageCount];
+            this.matchList = new int[index.messageCount];
+            search("");
+        }
+
+        /**
+         * Match messages containing a token starting with every query term.
+         * An empty query matches everything.
+         *
+         * @return number of matching messages
+         */
+        int search(CharSequence query) {
+            String lower = query.toString().toLowerCase(Locale.ROOT);
+            Arrays.fill(matches, true);
+            matchCount = matches.length;
+
+            int start = -1;
+            for (int i = 0; i <= lower.length(); i++) {
+                boolean word = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+                if (word && start < 0) {
+                    start = i;
+                } else if (!word && start >= 0) {
+                    intersectTerm(lower, start, i);
+                    start = -1;
+                    if (matchCount == 0) break;
+                }
+            }
+
+            int position = 0;
+            for (int m = 0; m < matches.length && position < matchCount; m++) {
+                if (matches[m]) matchList[position++] = m;
+            }
+            return matchCount;
+        }
+
+        /**
+         * @return number of messages matched by the last search
+         */
+        int matchCount() {
+            return matchCount;
+        }
+
+        /**
+         * @return snapshot index of the match at position (0 until matchCount())
+         */
+        int matchAt(int position) {
+            return matchList[position];
+        }
+
+        private void intersectTerm(String query, int from, int to) {
+            String[] tokens = index.tokens;
+            Arrays.fill(termMatches, false);
+
+            // Lower bound: first token >= term
+            int lo = 0;
+            int hi = tokens.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compareToTerm(tokens[mid], query, from, to) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            for (int t = lo; t < tokens.length && startsWith(tokens[t], query, from, to); t++) {
+                for (int p = index.postingStart[t]; p < index.postingStart[t + 1]; p++) {
+                    termMatches[index.postings[p]] = true;
+                }
+            }
+
+            matchCount = 0;
+            for (int m = 0; m < matches.length; m++) {
+                matches[m] = matches[m] && termMatches[m];
+                if (matches[m]) matchCount++;
+            }
+        }
+
+        private static int compareToTerm(String token, String query, int from, int to) {
+            int length = Math.min(token.length(), to - from);
+            for (int i = 0; i < length; i++) {
+                int diff = token.charAt(i) - query.charAt(from + i);
+                if (diff != 0) return diff;
+            }
+            return token.length() - (to - from);
+        }
+
+        private static boolean startsWith(String token, String query, int from, int to) {
+            return token.regionMatches(0, query, from, to - from);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.bikemessenger.floating;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+import android.widget.BaseAdapter;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+/**
+ * MessageListAdapter
+ *
+ * Backs the overlay menu's ListView with the current search matches, so
+ * only the rows on screen exist as views. Opening the menu or typing a
+ * query binds a screenful of recycled rows, however many messages the
+ * snapshot holds.
+ *
+ * Main thread only.
+ */
+final class MessageListAdapter extends BaseAdapter {
+
+    static final int ROW_BG_COLOR = Color.parseColor("#161B22");
+    static final int ROW_FLASH_COLOR = Color.parseColor("#27AE60");
+
+    /**
+     * Views of one recycled row
+     */
+    private static final class RowViews {
+        final TextView icon;
+        final TextView text;
+        // Color behind icon; rebinding to the same color keeps its drawable
+        int iconColor;
+
+        RowViews(TextView icon, TextView text) {
+            this.icon = icon;
+            this.text = text;
+        }
+    }
+
+    private final Context context;
+    private final OverlayResources resources;
+
+    private MessageSnapshot snapshot = MessageSnapshot.EMPTY;
+    private MessageIndex.Searcher searcher = MessageIndex.EMPTY.newSearcher();
+
+    MessageListAdapter(Context context, OverlayResources resources) {
+        this.context = context;
+        this.resources = resources;
+    }
+
+    /**
+     * Show the searcher's current matches from snapshot. The searcher must
+     * come from the index built for that snapshot.
+     */
+    void setData(MessageSnapshot snapshot, MessageIndex.Searcher searcher) {
+        this.snapshot = snapshot;
+        this.searcher = searcher;
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public int getCount() {
+        return searcher.matchCount();
+    }
+
+    @Override
+    public MessageData getItem(int position) {
+        return snapshot.messages.get(searcher.matchAt(position));
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return searcher.matchAt(position);
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        View row = convertView != null ? convertView : createRow();
+        RowViews views = (RowViews) row.getTag();
+        MessageData msg = getItem(position);
+
+        views.icon.setText(resources.iconText(msg.icon, views.icon));
+        int iconColor = OverlayResources.parseColor(msg.color, OverlayResources.ACCENT_COLOR);
+        if (views.icon.getBackground() == null || iconColor != views.iconColor) {
+            views.icon.setBackground(resources.roundedRect(iconColor, 12));
+            views.iconColor = iconColor;
+        }
+        views.text.setText(msg.text);
+        return row;
+    }
+
+    private View createRow() {
+        LinearLayout row = new LinearLayout(context);
+        row.setOrientation(LinearLayout.HORIZONTAL);
+        row.setGravity(Gravity.CENTER_VERTICAL);
+        row.setPadding(dpToPx(8), dpToPx(6), dpToPx(8), dpToPx(6));
+        row.setLayoutParams(new AbsListView.LayoutParams(
+            ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        // Set once; only a send flash swaps it, and restores it afterwards
+        row.setBackground(resources.roundedRect(ROW_BG_COLOR, 12));
+
+        // Colored icon circle
+        TextView iconView = new TextView(context);
+        iconView.setTextSize(20);
+        iconView.setGravity(Gravity.CENTER);
+
+        LinearLayout.LayoutParams iconParams = new LinearLayout.LayoutParams(
+            dpToPx(42), dpToPx(42));
+        iconParams.setMargins(0, 0, dpToPx(10), 0);
+        row.addView(iconView, iconParams);
+
+        // Message text
+        TextView textView = new TextView(context);
+        textView.setTextColor(Color.WHITE);
+        textView.setTextSize(13);
+        textView.setTypeface(null, android.graphics.Typeface.BOLD);
+        textView.setMaxLines(1);
+
+        LinearLayout.LayoutParams textParams = new LinearLayout.LayoutParams(
+            0, ViewGroup.LayoutParams.WRAP_CONTENT, 1);
+        row.addView(textView, textParams);
+
+        row.setTag(new RowViews(iconView, textView));
+        return row;
+    }
+
+    private int dpToPx(int dp) {
+        return resources.dpToPx(dp);
+    }
+}
@@ -0,0 +1,96 @@
+package com.bikemessenger.floating;
+
+import java.util.concurrent.Executor;
+
+/**
+ * MessageSender
+ *
+ * The native send and receive path shared by every send surface (overlay
+ * menu, gesture shortcuts, notification actions). Template rendering,
+ * trip counting and transport all run on the given executor (the
+ * OverlayWorker in the app), never on the caller's thread.
+ *
+ * Has no Android dependencies; the transport and listener are plugged in
+ * by OverlayResources.
+ */
+final class MessageSender {
+
+    // Where a send originated
+    static final int SOURCE_OVERLAY = 0;
+    static final int SOURCE_NOTIFICATION = 1;
+
+    /**
+     * Delivers a rendered message to the group (broadcast, FCM, WebSocket, ...)
+     */
+    interface Transport {
+        void deliver(String messageId, String text, long timestamp);
+    }
+
+    /**
+     * Notified on the executor thread after each send and receive
+     */
+    interface Listener {
+        void onSent(String messageId, String text, long timestamp, int source);
+
+        void onReceived(String text, long timestamp);
+    }
+
+    private static final Listener NO_LISTENER = new Listener() {
+        @Override
+        public void onSent(String messageId, String text, long timestamp, int source) {
+        }
+
+        @Override
+        public void onReceived(String text, long timestamp) {
+        }
+    };
+
+    private final Executor executor;
+    private final TemplateEngine templates;
+    private final TripCounters trip;
+    private final Transport transport;
+    private volatile Listener listener = NO_LISTENER;
+
+    MessageSender(Executor executor, TemplateEngine templates, TripCounters trip,
+                  Transport transport) {
+        this.executor = executor;
+        this.templates = templates;
+        this.trip = trip;
+        this.transport = transport;
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener != null ? listener : NO_LISTENER;
+    }
+
+    /**
+     * Render and deliver a message. Returns immediately; the work runs on
+     * the executor.
+     *
+     * @param rawText message text, possibly containing {placeholders}
+     */
+    void send(String messageId, String rawText, long timestamp, int source) {
+        executor.execute(() -> deliver(messageId, templates.render(rawText), timestamp, source));
+    }
+
+    /**
+     * Render and deliver a message whose template was precompiled with its
+     * snapshot. Returns immediately; the work runs on the executor.
+     */
+    void send(String messageId, MessageTemplate template, long timestamp, int source) {
+        executor.execute(() -> deliver(messageId, templates.render(template), timestamp, source));
+    }
+
+    private void deliver(String messageId, String text, long timestamp, int source) {
+        trip.onMessageSent();
+        transport.deliver(messageId, text, timestamp);
+        listener.onSent(messageId, text, timestamp, source);
+    }
+
+    /**
+     * An alert arrived from another rider
+     */
+    void receive(String text, long timestamp) {
+        executor.execute(() -> listener.onReceived(text, timestamp));
+    }
+}
@@ -0,0 +1,128 @@
+package com.bikemessenger.floating;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MessageSnapshot
+ *
+ * Immutable view of the message list at one point in time. Snapshots are
+ * parsed on the worker thread and handed to the UI thread as a whole, so
+ * the menu never observes a half-updated list.
+ *
+ * TemplateEngine.precompile attaches the compiled template of every
+ * message before the snapshot leaves the worker, so sends never compile.
+ */
+final class MessageSnapshot {
+
+    static final MessageSnapshot EMPTY =
+        new MessageSnapshot(0, Collections.<MessageData>emptyList());
+
+    final long version;
+    final List<MessageData> messages;
+    private final Map<String, Integer> indexById;
+    // Compiled template of messages.get(i) at [i]; null until precompiled
+    private final MessageTemplate[] templates;
+
+    MessageSnapshot(long version, List<MessageData> messages) {
+        this.version = version;
+        this.messages = Collections.unmodifiableList(new ArrayList<>(messages));
+        this.indexById = new HashMap<>(messages.size() * 2);
+        for (int i = 0; i < messages.size(); i++) {
+            indexById.put(messages.get(i).id, i);
+        }
+        this.templates = null;
+    }
+
+    private MessageSnapshot(MessageSnapshot source, MessageTemplate[] templates) {
+        this.version = source.version;
+        this.messages = source.messages;
+        this.indexById = source.indexById;
+        this.templates = templates;
+    }
+
+    /**
+     * @return this snapshot with templates[i] compiled from messages.get(i)
+     */
+    MessageSnapshot withTemplates(MessageTemplate[] templates) {
+        if (templates.length != messages.size()) {
+            throw new IllegalArgumentException(
+                templates.length + " templates for " + messages.size() + " messages");
+        }
+        return new MessageSnapshot(this, templates);
+    }
+
+    /**
+     * Parse the JSON array sent from React Native into a snapshot.
+     * Must not be called on the main thread.
+     */
+    static MessageSnapshot parse(long version, String json) throws JSONException {
+        if (json == null) return new MessageSnapshot(version, Collections.<MessageData>emptyList());
+
+        JSONArray array = new JSONArray(json);
+        List<MessageData> parsed = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject obj = array.getJSONObject(i);
+            parsed.add(new MessageData(
+                obj.getString("id"),
+                obj.getString("text"),
+                obj.getString("icon"),
+                obj.getString("color"),
+                obj.optInt("order", i),
+                obj.optInt("sendCount", 0)
+            ));
+        }
+        return new MessageSnapshot(version, parsed);
+    }
+
+    /**
+     * @return the message with the given id, or null if it is not in this snapshot
+     */
+    MessageData findById(String id) {
+        Integer index = id == null ? null : indexById.get(id);
+        return index == null ? null : messages.get(index);
+    }
+
+    /**
+     * @return the compiled template of msg, or null if msg is not part of
+     *         this snapshot or the snapshot has not been precompiled
+     */
+    MessageTemplate templateFor(MessageData msg) {
+        if (templates == null) return null;
+        Integer index = indexById.get(msg.id);
+        return index != null && messages.get(index) == msg ? templates[index] : null;
+    }
+
+    /**
+     * @return the compiled template of messages.get(index), or null if the
+     *         snapshot has not been precompiled
+     */
+    MessageTemplate templateAt(int index) {
+        return templates == null ? null : templates[index];
+    }
+
+    /**
+     * Most used messages first (by sendCount, then list order)
+     *
+     * @param limit maximum number of messages returned
+     */
+    List<MessageData> topRanked(int limit) {
+        List<MessageData> ranked = new ArrayList<>(messages);
+        Collections.sort(ranked, (a, b) -> {
+            if (a.sendCount != b.sendCount) return Integer.compare(b.sendCount, a.sendCount);
+            return Integer.compare(a.order, b.order);
+        });
+        return ranked.size() > limit ? ranked.subList(0, limit) : ranked;
+    }
+
+    int size() {
+        return messages.size();
+    }
+}
@@ -0,0 +1,118 @@
+package com.bikemessenger.floating;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MessageTemplate
+ *
+ * Compiled form of a message text such as "ETA {eta}" or "Stopped at {time}".
+ * The text is parsed once into literal runs and placeholder slot indices;
+ * rendering only appends to a caller-owned StringBuilder.
+ *
+ * Syntax: {name} is a placeholder, {{ and }} are a literal "{" and "}".
+ * Unknown names, lone "}" and unterminated braces are kept as literal text.
+ */
+final class MessageTemplate {
+
+    /**
+     * Maps placeholder names to slot indices at compile time
+     */
+    interface SlotResolver {
+        /** @return slot index for the name, or -1 if unknown */
+        int slotOf(String name);
+    }
+
+    /**
+     * Produces the current value of one placeholder
+     */
+    interface Placeholder {
+        /** Append the current value to out; return false if no value is available */
+        boolean appendTo(StringBuilder out);
+    }
+
+    static final String MISSING_VALUE = "--";
+
+    final String source;
+    // literals.length == slots.length + 1; literal i precedes slot i
+    private final String[] literals;
+    private final int[] slots;
+
+    private MessageTemplate(String source, String[] literals, int[] slots) {
+        this.source = source;
+        this.literals = literals;
+        this.slots = slots;
+    }
+
+    static MessageTemplate compile(String source, SlotResolver resolver) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+
+        int i = 0;
+        int length = source.length();
+        while (i < length) {
+            char c = source.charAt(i);
+            if (c == '}' && i + 1 < length && source.charAt(i + 1) == '}') {
+                literal.append('}');
+                i += 2;
+                continue;
+            }
+            if (c != '{') {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            if (i + 1 < length && source.charAt(i + 1) == '{') {
+                literal.append('{');
+                i += 2;
+                continue;
+            }
+            int close = source.indexOf('}', i + 1);
+            int slot = close < 0 ? -1 : resolver.slotOf(source.substring(i + 1, close));
+            if (slot < 0) {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            literals.add(literal.toString());
+            literal.setLength(0);
+            slots.add(slot);
+            i = close + 1;
+        }
+        // Plain text without escapes keeps the source instance, so rendering it never copies
+        String last = literal.toString();
+        literals.add(slots.isEmpty() && last.equals(source) ? source : last);
+
+        int[] slotArray = new int[slots.size()];
+        for (int s = 0; s < slotArray.length; s++) {
+            slotArray[s] = slots.get(s);
+        }
+        return new MessageTemplate(source, literals.toArray(new String[0]), slotArray);
+    }
+
+    boolean hasPlaceholders() {
+        return slots.length > 0;
+    }
+
+    /**
+     * @return the rendered text of a template without placeholders, with
+     *         escapes resolved
+     */
+    String literalText() {
+        return literals[0];
+    }
+
+    /**
+     * Append the rendered text to out, filling slots from placeholders
+     */
+    void render(Placeholder[] placeholders, StringBuilder out) {
+        out.append(literals[0]);
+        for (int i = 0; i < slots.length; i++) {
+            if (!placeholders[slots[i]].appendTo(out)) {
+                out.append(MISSING_VALUE);
+            }
+            out.append(literals[i + 1]);
+        }
+    }
+}
@@ -0,0 +1,733 @@
+package com.bikemessenger.floating;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.PixelFormat;
+import android.graphics.drawable.ColorDrawable;
+import android.os.Build;
+import android.os.SystemClock;
+import android.text.Editable;
+import android.text.InputType;
+import android.text.TextWatcher;
+import android.util.Log;
+import android.view.Gravity;
+import android.view.HapticFeedbackConstants;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.WindowManager;
+import android.view.inputmethod.EditorInfo;
+import android.view.inputmethod.InputMethodManager;
+import android.widget.EditText;
+import android.widget.LinearLayout;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import org.json.JSONException;
+
+/**
+ * OverlayProfile
+ *
+ * One named overlay hosted by FloatingWindowService (e.g. "group-ride",
+ * "commute", "delivery"). Each profile owns its floating button, position,
+ * menu and message snapshot; everything else comes from the shared
+ * OverlayResources pool.
+ *
+ * The menu list is a ListView over MessageListAdapter, so only visible
+ * rows exist. Longer menus get a search box that filters it through a
+ * MessageIndex built on the worker alongside each snapshot.
+ *
+ * All methods must be called on the main thread.
+ */
+final class OverlayProfile {
+
+    private static final String TAG = "OverlayProfile";
+    static final String DEFAULT_ID = "default";
+
+    static final int BUTTON_SIZE_DP = 60;
+    private static final int MENU_WIDTH_DP = 220;
+    private static final long LONG_PRESS_TIMEOUT_MS = 500;
+    private static final int SWIPE_MIN_DISTANCE_DP = 48;
+    private static final long SWIPE_MAX_DURATION_MS = 250;
+    // Below this many messages the list fits on screen and search is noise
+    private static final int SEARCH_MIN_MESSAGES = 8;
+
+    private static final int MENU_BG_COLOR = Color.parseColor("#1A1F2E");
+    private static final int DIVIDER_COLOR = Color.parseColor("#30363D");
+    private static final int HINT_COLOR = Color.parseColor("#8B949E");
+
+    /**
+     * Worker result: a snapshot and the search index built for it
+     */
+    private static final class LoadedMessages {
+        final MessageSnapshot snapshot;
+        final MessageIndex index;
+
+        LoadedMessages(MessageSnapshot snapshot, MessageIndex index) {
+            this.snapshot = snapshot;
+            this.index = index;
+        }
+    }
+
+    final String id;
+    private final FloatingWindowService host;
+    private final OverlayResources resources;
+    private final WindowManager windowManager;
+    final int slot;
+
+    private FloatingButtonView floatingButton;
+    private View floatingMenu;
+    private boolean isMenuVisible = false;
+
+    private WindowManager.LayoutParams buttonParams;
+    private WindowManager.LayoutParams menuParams;
+
+    private MessageSnapshot snapshot = MessageSnapshot.EMPTY;
+    private MessageIndex index = MessageIndex.EMPTY;
+    private long snapshotVersion = 0;
+    // Last snapshot compiled and index built on the worker; the next load
+    // reuses their templates and tokens (worker thread only)
+    private MessageSnapshot workerSnapshot = MessageSnapshot.EMPTY;
+    private MessageIndex workerIndex = MessageIndex.EMPTY;
+
+    // List and search state of the open menu
+    private EditText searchBox;
+    private ListView menuList;
+    private MessageListAdapter menuAdapter;
+    private MessageIndex.Searcher searcher;
+
+    // Menu height cache, keyed by snapshot version and height limit
+    private int measuredMenuHeight;
+    private long measuredMenuVersion = -1;
+    private int measuredMaxHeight = -1;
+
+    /**
+     * @param slot index used to stack new profiles' buttons so they don't overlap
+     */
+    OverlayProfile(String id, int slot, FloatingWindowService host,
+                   OverlayResources resources, WindowManager windowManager) {
+        this.id = id;
+        this.slot = slot;
+        this.host = host;
+        this.resources = resources;
+        this.windowManager = windowManager;
+    }
+
+    MessageSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Parse messages, compile their templates and update the search index on
+     * the worker thread, then swap in the resulting snapshot on the main
+     * thread. A JSON error keeps the previous snapshot.
+     */
+    void loadMessages(String json) {
+        final long version = ++snapshotVersion;
+        resources.worker().submit(() -> {
+            try {
+                MessageSnapshot parsed = MessageSnapshot.parse(version, json);
+                workerSnapshot = resources.templates().precompile(parsed, workerSnapshot);
+                workerIndex = MessageIndex.build(workerSnapshot, workerIndex);
+                return new LoadedMessages(workerSnapshot, workerIndex);
+            } catch (JSONException e) {
+                Log.e(TAG, "Failed to parse messages JSON", e);
+                return null;
+            }
+        }, loaded -> {
+            // Drop results that were overtaken by a newer update
+            if (loaded == null || loaded.snapshot.version != snapshotVersion) return;
+            snapshot = loaded.snapshot;
+            index = loaded.index;
+            host.onSnapshotLoaded(this);
+            if (isMenuVisible) {
+                updateMenuContent();
+            }
+        });
+    }
+
+    /**
+     * Create the draggable floating button overlay
+     */
+    void show() {
+        if (floatingButton != null) return;
+
+        Context context = host.getUiContext();
+        int buttonSizePx = dpToPx(BUTTON_SIZE_DP);
+        int screenWidth = host.getScreenWidth();
+        int screenHeight = host.getScreenHeight();
+
+        final FloatingButtonView buttonView =
+            new FloatingButtonView(context, resources.buttonPaints());
+
+        buttonParams = new WindowManager.LayoutParams(
+            buttonSizePx,
+            buttonSizePx,
+            overlayType(),
+            WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE,
+            PixelFormat.TRANSLUCENT
+        );
+
+        buttonParams.gravity = Gravity.TOP | Gravity.START;
+        buttonParams.x = screenWidth - buttonSizePx - dpToPx(16);
+        buttonParams.y = Math.max(0,
+            screenHeight - buttonSizePx - dpToPx(200) - slot * (buttonSizePx + dpToPx(16)));
+
+        // Touch listener for drag, tap and gesture shortcuts
+        final GestureRecognizer gestures = new GestureRecognizer(
+            10, 300, LONG_PRESS_TIMEOUT_MS, dpToPx(SWIPE_MIN_DISTANCE_DP), SWIPE_MAX_DURATION_MS);
+        buttonView.setOnTouchListener(new View.OnTouchListener() {
+            private int initialX, initialY;
+
+            private final Runnable longPressCheck = () -> {
+                if (gestures.onTick(SystemClock.uptimeMillis()) == GestureRecognizer.LONG_PRESS) {
+                    sendGestureShortcut(GestureRecognizer.LONG_PRESS);
+                }
+            };
+
+            @Override
+            public boolean onTouch(View v, MotionEvent event) {
+                switch (event.getAction()) {
+                    case MotionEvent.ACTION_DOWN:
+                        initialX = buttonParams.x;
+                        initialY = buttonParams.y;
+                        gestures.onDown(event.getRawX(), event.getRawY(), event.getEventTime());
+                        buttonView.setPressedState(true);
+                        // Only hold-to-send needs the tick; unmapped, a hold stays a plain press
+                        if (host.shortcutFor(GestureRecognizer.LONG_PRESS) != null) {
+                            buttonView.postDelayed(longPressCheck, gestures.getLongPressTimeout());
+                        }
+                        return true;
+
+                    case MotionEvent.ACTION_MOVE:
+                        int moveResult = gestures.onMove(
+                            event.getRawX(), event.getRawY(), event.getEventTime());
+
+                        if (moveResult == GestureRecognizer.DRAG_START) {
+                            buttonView.removeCallbacks(longPressCheck);
+                            buttonView.setDragging(true);
+                        }
+
+                        if (moveResult == GestureRecognizer.DRAG_START
+                                || moveResult == GestureRecognizer.DRAG) {
+                            buttonParams.x = initialX + (int) gestures.getDx();
+                            buttonParams.y = initialY + (int) gestures.getDy();
+
+                            // Clamp to screen bounds
+                            buttonParams.x = Math.max(0, Math.min(buttonParams.x,
+                                host.getScreenWidth() - buttonSizePx));
+                            buttonParams.y = Math.max(0, Math.min(buttonParams.y,
+                                host.getScreenHeight() - buttonSizePx));
+
+                            try {
+                                windowManager.updateViewLayout(buttonView, buttonParams);
+                            } catch (Exception e) {
+                                Log.e(TAG, "Failed to update button layout", e);
+                            }
+                        }
+                        return true;
+
+                    case MotionEvent.ACTION_UP:
+                        buttonView.removeCallbacks(longPressCheck);
+                        int upResult = gestures.onUp(
+                            event.getRawX(), event.getRawY(), event.getEventTime());
+
+                        if (upResult == GestureRecognizer.TAP) {
+                            // Tap - toggle menu
+                            toggleMenu();
+                        } else if (GestureRecognizer.isSwipe(upResult)
+                                && sendGestureShortcut(upResult)) {
+                            // Swipe - the button goes back where it was
+                            buttonParams.x = initialX;
+                            buttonParams.y = initialY;
+                            try {
+                                windowManager.updateViewLayout(buttonView, buttonParams);
+                            } catch (Exception e) {
+                                Log.e(TAG, "Failed to restore button", e);
+                            }
+                        } else if (upResult != GestureRecognizer.NONE) {
+                            // Drag (or unmapped swipe) - snap to nearest edge
+                            snapButtonToEdge();
+                        }
+                        buttonView.setPressedState(false);
+                        buttonView.setDragging(false);
+                        return true;
+
+                    case MotionEvent.ACTION_CANCEL:
+                        buttonView.removeCallbacks(longPressCheck);
+                        if (gestures.onCancel() == GestureRecognizer.DRAG_END) {
+                            snapButtonToEdge();
+                        }
+                        buttonView.setPressedState(false);
+                        buttonView.setDragging(false);
+                        return true;
+                }
+                return false;
+            }
+        });
+
+        try {
+            windowManager.addView(buttonView, buttonParams);
+            floatingButton = buttonView;
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to add floating button", e);
+        }
+    }
+
+    private void snapButtonToEdge() {
+        int buttonSizePx = dpToPx(BUTTON_SIZE_DP);
+        int screenWidth = host.getScreenWidth();
+        buttonParams.x = buttonParams.x < screenWidth / 2
+            ? dpToPx(16)
+            : screenWidth - buttonSizePx - dpToPx(16);
+
+        try {
+            windowManager.updateViewLayout(floatingButton, buttonParams);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to snap button", e);
+        }
+    }
+
+    /**
+     * Send the message mapped to a gesture straight through the send path,
+     * without building the menu.
+     *
+     * @return true if a message was mapped and sent
+     */
+    private boolean sendGestureShortcut(int gesture) {
+        MessageData msg = snapshot.findById(host.shortcutFor(gesture));
+        if (msg == null) return false;
+
+        if (floatingButton != null) {
+            floatingButton.performHapticFeedback(HapticFeedbackConstants.LONG_PRESS);
+        }
+        host.sendMessageFromOverlay(msg, snapshot.templateFor(msg));
+        return true;
+    }
+
+    /**
+     * Another rider's alert arrived: bump the unread badge unless the menu is open
+     */
+    void onAlertReceived() {
+        if (floatingButton != null && !isMenuVisible) {
+            floatingButton.setUnreadCount(floatingButton.getUnreadCount() + 1);
+        }
+    }
+
+    /**
+     * Toggle the floating menu visibility
+     */
+    private void toggleMenu() {
+        if (isMenuVisible) {
+            hideMenu();
+        } else {
+            showMenu();
+        }
+    }
+
+    /**
+     * Show the message menu above the floating button
+     */
+    private void showMenu() {
+        if (floatingMenu != null) {
+            hideMenu();
+        }
+
+        if (floatingButton != null) {
+            floatingButton.setUnreadCount(0);
+        }
+
+        Context context = host.getUiContext();
+        int menuWidthPx = dpToPx(MENU_WIDTH_DP);
+
+        // Build menu layout
+        LinearLayout menuLayout = new LinearLayout(context);
+        menuLayout.setOrientation(LinearLayout.VERTICAL);
+        menuLayout.setBackground(resources.outlinedRect(MENU_BG_COLOR, 16, 2));
+        menuLayout.setElevation(dpToPx(12));
+        menuLayout.setPadding(dpToPx(8), dpToPx(8), dpToPx(8), dpToPx(8));
+
+        // Header
+        TextView header = new TextView(context);
+        header.setText(DEFAULT_ID.equals(id) ? "🏍 Quick Send" : "🏍 " + id);
+        header.setTextColor(Color.WHITE);
+        header.setTextSize(14);
+        header.setPadding(dpToPx(12), dpToPx(8), dpToPx(12), dpToPx(8));
+        header.setTypeface(null, android.graphics.Typeface.BOLD);
+        menuLayout.addView(header);
+
+        // Always present so a growing snapshot can reveal it in place
+        menuLayout.addView(createSearchBox(context));
+        searchBox.setVisibility(isSearchable() ? View.VISIBLE : View.GONE);
+
+        // Divider
+        View divider = new View(context);
+        divider.setBackgroundColor(DIVIDER_COLOR);
+        LinearLayout.LayoutParams dividerParams = new LinearLayout.LayoutParams(
+            ViewGroup.LayoutParams.MATCH_PARENT, dpToPx(1));
+        dividerParams.setMargins(0, dpToPx(4), 0, dpToPx(4));
+        menuLayout.addView(divider, dividerParams);
+
+        // Recycling message list; transparent dividers stand in for row margins
+        menuList = new ListView(context);
+        menuList.setDivider(new ColorDrawable(Color.TRANSPARENT));
+        menuList.setDividerHeight(dpToPx(6));
+        menuList.setSelector(new ColorDrawable(Color.TRANSPARENT));
+        menuList.setPadding(0, dpToPx(4), 0, dpToPx(4));
+        menuList.setClipToPadding(false);
+        menuAdapter = new MessageListAdapter(context, resources);
+        searcher = index.newSearcher();
+        menuAdapter.setData(snapshot, searcher);
+        menuList.setAdapter(menuAdapter);
+        menuList.setOnItemClickListener((parent, row, position, itemId) ->
+            sendFromMenu(menuAdapter.getItem(position), row));
+
+        LinearLayout.LayoutParams listParams = new LinearLayout.LayoutParams(
+            ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        listParams.weight = 1;
+        menuLayout.addView(menuList, listParams);
+
+        // Edit button
+        View divider2 = new View(context);
+        divider2.setBackgroundColor(DIVIDER_COLOR);
+        LinearLayout.LayoutParams divider2Params = new LinearLayout.LayoutParams(
+            ViewGroup.LayoutParams.MATCH_PARENT, dpToPx(1));
+        divider2Params.setMargins(0, dpToPx(4), 0, dpToPx(4));
+        menuLayout.addView(divider2, divider2Params);
+
+        TextView editBtn = new TextView(context);
+        editBtn.setText("✏️ Edit Messages");
+        editBtn.setTextColor(OverlayResources.ACCENT_COLOR);
+        editBtn.setTextSize(13);
+        editBtn.setGravity(Gravity.CENTER);
+        editBtn.setPadding(dpToPx(12), dpToPx(10), dpToPx(12), dpToPx(10));
+        editBtn.setTypeface(null, android.graphics.Typeface.BOLD);
+        editBtn.setOnClickListener(v -> {
+            // Launch the main React Native activity
+            hideMenu();
+            host.openApp();
+        });
+        menuLayout.addView(editBtn);
+
+        menuParams = new WindowManager.LayoutParams(
+            menuWidthPx,
+            measureMenuHeight(menuLayout),
+            overlayType(),
+            WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE,
+            PixelFormat.TRANSLUCENT
+        );
+        menuParams.gravity = Gravity.TOP | Gravity.START;
+        positionMenu();
+
+        // Tapping outside while the search box has focus gives focus back to the app below
+        menuLayout.setOnTouchListener((v, event) -> {
+            if (event.getAction() == MotionEvent.ACTION_OUTSIDE) {
+                setMenuFocusable(false);
+            }
+            return false;
+        });
+
+        try {
+            windowManager.addView(menuLayout, menuParams);
+            floatingMenu = menuLayout;
+            isMenuVisible = true;
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to show menu", e);
+        }
+    }
+
+    /**
+     * Compact search field. Keystrokes filter the adapter through the
+     * MessageIndex; only the visible rows are rebound and nothing is
+     * re-measured.
+     */
+    private EditText createSearchBox(Context context) {
+        EditText box = new EditText(context);
+        box.setHint("🔍 Search");
+        box.setHintTextColor(HINT_COLOR);
+        box.setTextColor(Color.WHITE);
+        box.setTextSize(13);
+        box.setSingleLine(true);
+        box.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_FLAG_NO_SUGGESTIONS);
+        box.setImeOptions(EditorInfo.IME_ACTION_SEARCH | EditorInfo.IME_FLAG_NO_EXTRACT_UI);
+        box.setBackground(resources.roundedRect(MessageListAdapter.ROW_BG_COLOR, 12));
+        box.setPadding(dpToPx(12), dpToPx(8), dpToPx(12), dpToPx(8));
+
+        // The menu window is FLAG_NOT_FOCUSABLE until the rider actually taps here
+        box.setOnTouchListener((v, event) -> {
+            if (event.getAction() == MotionEvent.ACTION_DOWN) {
+                setMenuFocusable(true);
+            }
+            return false;
+        });
+        box.setOnKeyListener((v, keyCode, event) -> {
+            if (keyCode == KeyEvent.KEYCODE_BACK && event.getAction() == KeyEvent.ACTION_UP) {
+                setMenuFocusable(false);
+                return true;
+            }
+            return false;
+        });
+        box.setOnEditorActionListener((v, actionId, event) -> {
+            setMenuFocusable(false);
+            return true;
+        });
+        box.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                applyFilter(s);
+            }
+        });
+
+        LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(
+            ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        params.setMargins(0, dpToPx(4), 0, 0);
+        box.setLayoutParams(params);
+        searchBox = box;
+        return box;
+    }
+
+    private void applyFilter(CharSequence query) {
+        if (searcher == null || menuAdapter == null) return;
+
+        searcher.search(query);
+        menuAdapter.notifyDataSetChanged();
+        menuList.setSelection(0);
+    }
+
+    private boolean isSearchable() {
+        return snapshot.size() >= SEARCH_MIN_MESSAGES;
+    }
+
+    private boolean isQueryActive() {
+        return searchBox != null && searchBox.length() > 0;
+    }
+
+    /**
+     * Switch only the menu window between FLAG_NOT_FOCUSABLE (default, the
+     * app below keeps the keyboard) and focusable for typing. While
+     * focusable it stays NOT_TOUCH_MODAL, so touches outside still reach
+     * other apps. The button window is never made focusable.
+     */
+    private void setMenuFocusable(boolean focusable) {
+        if (floatingMenu == null || menuParams == null || searchBox == null) return;
+
+        boolean isFocusable = (menuParams.flags & WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE) == 0;
+        if (isFocusable == focusable) return;
+
+        InputMethodManager imm =
+            (InputMethodManager) host.getUiContext().getSystemService(Context.INPUT_METHOD_SERVICE);
+        if (focusable) {
+            menuParams.flags &= ~WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE;
+            menuParams.flags |= WindowManager.LayoutParams.FLAG_NOT_TOUCH_MODAL
+                | WindowManager.LayoutParams.FLAG_WATCH_OUTSIDE_TOUCH;
+        } else {
+            if (imm != null) imm.hideSoftInputFromWindow(searchBox.getWindowToken(), 0);
+            searchBox.clearFocus();
+            menuParams.flags |= WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE;
+            menuParams.flags &= ~(WindowManager.LayoutParams.FLAG_NOT_TOUCH_MODAL
+                | WindowManager.LayoutParams.FLAG_WATCH_OUTSIDE_TOUCH);
+        }
+
+        try {
+            windowManager.updateViewLayout(floatingMenu, menuParams);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to switch menu focus", e);
+            return;
+        }
+
+        if (focusable) {
+            searchBox.requestFocus();
+            if (imm != null) imm.showSoftInput(searchBox, InputMethodManager.SHOW_IMPLICIT);
+        }
+    }
+
+    /**
+     * Real height of the menu for the current snapshot, capped at half the
+     * screen (the message list scrolls beyond that). Measured once per
+     * snapshot and screen height, then reused for every reopen. While a
+     * query filters the list the measured height is shorter than the full
+     * menu, so it is used but not cached.
+     */
+    private int measureMenuHeight(View menuLayout) {
+        int maxMenuHeight = (int) (host.getScreenHeight() * 0.5);
+        boolean filtered = isQueryActive();
+        if (filtered || measuredMenuVersion != snapshot.version || measuredMaxHeight != maxMenuHeight) {
+            menuLayout.measure(
+                View.MeasureSpec.makeMeasureSpec(dpToPx(MENU_WIDTH_DP), View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(maxMenuHeight, View.MeasureSpec.AT_MOST));
+            if (filtered) return menuLayout.getMeasuredHeight();
+
+            measuredMenuHeight = menuLayout.getMeasuredHeight();
+            measuredMenuVersion = snapshot.version;
+            measuredMaxHeight = maxMenuHeight;
+        }
+        return measuredMenuHeight;
+    }
+
+    /**
+     * Place the menu next to the button: above it when there is room,
+     * otherwise below, always inside the screen.
+     */
+    private void positionMenu() {
+        int screenWidth = host.getScreenWidth();
+        int screenHeight = host.getScreenHeight();
+        int menuWidthPx = dpToPx(MENU_WIDTH_DP);
+        int buttonSizePx = dpToPx(BUTTON_SIZE_DP);
+        int gap = dpToPx(8);
+
+        // Position to the left of button if button is on right side
+        if (buttonParams.x > screenWidth / 2) {
+            menuParams.x = buttonParams.x - menuWidthPx + buttonSizePx;
+        } else {
+            menuParams.x = buttonParams.x;
+        }
+        menuParams.x = Math.max(0, Math.min(menuParams.x, screenWidth - menuWidthPx));
+
+        int above = buttonParams.y - menuParams.height - gap;
+        int y = above >= 0 ? above : buttonParams.y + buttonSizePx + gap;
+        menuParams.y = Math.max(0, Math.min(y, screenHeight - menuParams.height));
+    }
+
+    /**
+     * The display changed size (rotation, split-screen, fold/unfold).
+     * Remap the button proportionally and move the open menu with a single
+     * updateViewLayout each, without tearing the windows down.
+     */
+    void onScreenSizeChanged(int oldWidth, int oldHeight) {
+        if (floatingButton == null) return;
+
+        int buttonSizePx = dpToPx(BUTTON_SIZE_DP);
+        int edge = dpToPx(16);
+        int newWidth = host.getScreenWidth();
+        int newHeight = host.getScreenHeight();
+
+        // Snapped buttons stay on their edge; anything else keeps its relative position
+        boolean snappedLeft = buttonParams.x <= edge;
+        boolean snappedRight = buttonParams.x >= oldWidth - buttonSizePx - edge;
+        if (snappedLeft) {
+            buttonParams.x = edge;
+        } else if (snappedRight) {
+            buttonParams.x = newWidth - buttonSizePx - edge;
+        } else {
+            buttonParams.x = remap(buttonParams.x, oldWidth - buttonSizePx, newWidth - buttonSizePx);
+        }
+        buttonParams.y = remap(buttonParams.y, oldHeight - buttonSizePx, newHeight - buttonSizePx);
+
+        try {
+            windowManager.updateViewLayout(floatingButton, buttonParams);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to reposition button", e);
+        }
+
+        if (floatingMenu != null) {
+            menuParams.height = measureMenuHeight(floatingMenu);
+            positionMenu();
+            try {
+                windowManager.updateViewLayout(floatingMenu, menuParams);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to reposition menu", e);
+            }
+        }
+    }
+
+    private static int remap(int value, int oldRange, int newRange) {
+        if (oldRange <= 0 || newRange <= 0) return 0;
+        int mapped = Math.round(value * (newRange / (float) oldRange));
+        return Math.max(0, Math.min(mapped, newRange));
+    }
+
+    /**
+     * A menu row was tapped: send it and flash the row
+     */
+    private void sendFromMenu(MessageData msg, View row) {
+        host.sendMessageFromOverlay(msg, snapshot.templateFor(msg));
+        // Rows keep their background across rebinds, so the flash restores it
+        row.setBackground(resources.roundedRect(MessageListAdapter.ROW_FLASH_COLOR, 12));
+        row.postDelayed(() -> row.setBackground(
+            resources.roundedRect(MessageListAdapter.ROW_BG_COLOR, 12)), 500);
+    }
+
+    /**
+     * Hide the floating menu
+     */
+    void hideMenu() {
+        if (floatingMenu != null) {
+            try {
+                windowManager.removeView(floatingMenu);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to remove menu", e);
+            }
+            floatingMenu = null;
+            isMenuVisible = false;
+            searchBox = null;
+            menuList = null;
+            menuAdapter = null;
+            searcher = null;
+        }
+    }
+
+    /**
+     * Swap new messages into the open menu in place. The window stays, so
+     * an in-progress query keeps its focus and keyboard.
+     */
+    private void updateMenuContent() {
+        if (!isMenuVisible || menuAdapter == null) return;
+
+        if (!isSearchable() && searchBox.getVisibility() == View.VISIBLE) {
+            setMenuFocusable(false);
+            searchBox.getText().clear();
+            searchBox.setVisibility(View.GONE);
+        } else if (isSearchable()) {
+            searchBox.setVisibility(View.VISIBLE);
+        }
+
+        searcher = index.newSearcher();
+        searcher.search(searchBox.getText());
+        menuAdapter.setData(snapshot, searcher);
+
+        // Resize for the new snapshot, but don't shrink the window under a typing rider
+        if (!isQueryActive()) {
+            menuParams.height = measureMenuHeight(floatingMenu);
+            positionMenu();
+            try {
+                windowManager.updateViewLayout(floatingMenu, menuParams);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to resize menu", e);
+            }
+        }
+    }
+
+    /**
+     * Remove this profile's windows
+     */
+    void destroy() {
+        hideMenu();
+        if (floatingButton != null) {
+            try {
+                windowManager.removeView(floatingButton);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to remove floating button", e);
+            }
+            floatingButton = null;
+        }
+    }
+
+    private static int overlayType() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+            ? WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY
+            : WindowManager.LayoutParams.TYPE_PHONE;
+    }
+
+    private int dpToPx(int dp) {
+        return resources.dpToPx(dp);
+    }
+}
@@ -0,0 +1,201 @@
+package com.bikemessenger.floating;
+
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.Color;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.GradientDrawable;
+import android.os.Build;
+import android.text.PrecomputedText;
+import android.util.LongSparseArray;
+import android.widget.TextView;
+
+import java.util.HashMap;
+
+/**
+ * OverlayResources
+ *
+ * Resource pool shared by every overlay profile hosted by
+ * FloatingWindowService: the worker thread, the floating button paints,
+ * the constant state behind every menu drawable, the measured icon glyphs,
+ * the compiled message templates and the MessageSender. A second profile only pays for its own
+ * views, not for another copy of these.
+ *
+ * The pool of the running service is reachable through active(), which
+ * lets QuickSendReceiver send without touching the service or its windows.
+ *
+ * worker() and sender() may be called from any thread and templates() only
+ * from the worker; everything else belongs to the main thread.
+ */
+final class OverlayResources {
+
+    static final int ACCENT_COLOR = Color.parseColor("#FF6B35");
+
+    private final Context context;
+    private final float density;
+    private final OverlayWorker worker;
+    private final FloatingButtonView.Paints buttonPaints;
+    private final TemplateEngine templates;
+    private final MessageSender sender;
+
+    private static volatile OverlayResources active;
+
+    // (color, corner radius, stroke) -> shared GradientDrawable state
+    private final LongSparseArray<Drawable.ConstantState> drawableStates = new LongSparseArray<>();
+    // icon name -> emoji, measured once for the menu's icon circles on API 28+
+    private final HashMap<String, CharSequence> iconTexts = new HashMap<>();
+
+    OverlayResources(Context context) {
+        this.context = context;
+        this.density = context.getResources().getDisplayMetrics().density;
+        this.worker = new OverlayWorker("FloatingOverlayWorker");
+        this.buttonPaints = new FloatingButtonView.Paints(context);
+        this.templates = new TemplateEngine(
+            System::currentTimeMillis, new AndroidLocationSource(context), TripCounters.get());
+        this.sender = new MessageSender(
+            worker, templates, TripCounters.get(), this::broadcastSent);
+        active = this;
+    }
+
+    /**
+     * @return the pool of the running FloatingWindowService, or null
+     */
+    static OverlayResources active() {
+        return active;
+    }
+
+    /**
+     * Transport: broadcast the sent message to React Native.
+     * In production this would also send via FCM/WebSocket.
+     */
+    private void broadcastSent(String messageId, String text, long timestamp) {
+        Intent intent = new Intent("com.bikemessenger.MESSAGE_SENT");
+        intent.putExtra("messageId", messageId);
+        intent.putExtra("messageText", text);
+        intent.putExtra("timestamp", timestamp);
+        context.sendBroadcast(intent);
+    }
+
+    OverlayWorker worker() {
+        return worker;
+    }
+
+    MessageSender sender() {
+        return sender;
+    }
+
+    TemplateEngine templates() {
+        return templates;
+    }
+
+    FloatingButtonView.Paints buttonPaints() {
+        return buttonPaints;
+    }
+
+    /**
+     * Rounded rectangle background. Drawables returned for the same arguments
+     * share one ConstantState.
+     */
+    Drawable roundedRect(int color, int cornerRadiusDp) {
+        return sharedDrawable(color, cornerRadiusDp, 0);
+    }
+
+    /**
+     * Rounded rectangle background outlined in the accent color
+     */
+    Drawable outlinedRect(int color, int cornerRadiusDp, int strokeDp) {
+        return sharedDrawable(color, cornerRadiusDp, strokeDp);
+    }
+
+    private Drawable sharedDrawable(int color, int cornerRadiusDp, int strokeDp) {
+        long key = ((long) color << 32)
+            | ((long) (cornerRadiusDp & 0xFFFF) << 16)
+            | (strokeDp & 0xFFFF);
+
+        Drawable.ConstantState state = drawableStates.get(key);
+        if (state == null) {
+            GradientDrawable drawable = new GradientDrawable();
+            drawable.setCornerRadius(dpToPx(cornerRadiusDp));
+            drawable.setColor(color);
+            if (strokeDp > 0) {
+                drawable.setStroke(dpToPx(strokeDp), ACCENT_COLOR);
+            }
+            state = drawable.getConstantState();
+            drawableStates.put(key, state);
+        }
+        return state.newDrawable(context.getResources());
+    }
+
+    /**
+     * Emoji for iconName, ready to set on iconView. On API 28+ the glyph is
+     * measured once into a PrecomputedText shared by every view configured
+     * like iconView, so rebinding a recycled row skips emoji font fallback
+     * and measurement.
+     */
+    CharSequence iconText(String iconName, TextView iconView) {
+        CharSequence text = iconTexts.get(iconName);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            PrecomputedText.Params params = iconView.getTextMetricsParams();
+            if (!(text instanceof PrecomputedText)
+                    || !((PrecomputedText) text).getParams().equals(params)) {
+                text = PrecomputedText.create(getEmojiForIcon(iconName), params);
+                iconTexts.put(iconName, text);
+            }
+        } else if (text == null) {
+            text = getEmojiForIcon(iconName);
+            iconTexts.put(iconName, text);
+        }
+        return text;
+    }
+
+    /**
+     * Parse a message color, falling back to the accent color
+     */
+    static int parseColor(String color, int fallback) {
+        try {
+            return Color.parseColor(color);
+        } catch (Exception e) {
+            return fallback;
+        }
+    }
+
+    int dpToPx(int dp) {
+        return Math.round(dp * density);
+    }
+
+    /**
+     * Map Material Community Icon names to emoji approximations
+     * (In a full implementation, you'd use a proper icon font or drawable)
+     */
+    static String getEmojiForIcon(String iconName) {
+        switch (iconName) {
+            case "car-brake-alert": return "🛑";
+            case "gas-station": return "⛽";
+            case "map-marker-alert": return "📍";
+            case "coffee": return "☕";
+            case "speedometer": return "💨";
+            case "speedometer-slow": return "🐌";
+            case "alert-octagon": return "🚨";
+            case "hand-back-left": return "✋";
+            case "motorbike": return "🏍";
+            case "navigation": return "🧭";
+            case "food": return "🍔";
+            case "wrench": return "🔧";
+            case "camera": return "📷";
+            case "phone": return "📞";
+            case "thumb-up": return "👍";
+            case "flag-checkered": return "🏁";
+            case "weather-rainy": return "🌧";
+            case "home": return "🏠";
+            default: return "📢";
+        }
+    }
+
+    void release() {
+        if (active == this) active = null;
+        sender.setListener(null);
+        drawableStates.clear();
+        iconTexts.clear();
+        worker.quit();
+    }
+}
@@ -0,0 +1,105 @@
+package com.bikemessenger.floating;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import java.util.concurrent.Executor;
+
+/**
+ * OverlayWorker
+ *
+ * Threading model for the floating overlay. The main looper only touches
+ * views; JSON parsing, persistence, logging and outgoing broadcasts run on a
+ * single HandlerThread. Work that produces data for the UI is handed back to
+ * the main thread as an immutable result (see MessageSnapshot).
+ *
+ * Every send surface (menu, gestures, notification actions) goes through
+ * this thread, so it runs at default priority rather than in the background
+ * scheduling class. After quit(), nothing more reaches the main thread.
+ */
+final class OverlayWorker implements Executor {
+
+    /**
+     * Callback invoked on the main thread with the result of a background job
+     */
+    interface Callback<T> {
+        void onResult(T result);
+    }
+
+    /**
+     * Background job whose result is delivered back to the main thread
+     */
+    interface Job<T> {
+        T run() throws Exception;
+    }
+
+    private static final String TAG = "OverlayWorker";
+
+    private final HandlerThread thread;
+    private final Handler workerHandler;
+    private final Handler mainHandler;
+    // Set on the main thread by quit(); main-thread deliveries check it before running
+    private volatile boolean quitting = false;
+
+    OverlayWorker(String name) {
+        thread = new HandlerThread(name, Process.THREAD_PRIORITY_DEFAULT);
+        thread.start();
+        workerHandler = new Handler(thread.getLooper());
+        mainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * Run a task on the worker thread
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (quitting) return;
+        workerHandler.post(task);
+    }
+
+    void executeDelayed(Runnable task, long delayMillis) {
+        if (quitting) return;
+        workerHandler.postDelayed(task, delayMillis);
+    }
+
+    /**
+     * Run a job on the worker thread and deliver its result on the main thread.
+     * A job that throws delivers nothing; the failure is logged on the worker.
+     */
+    <T> void submit(Job<T> job, Callback<T> callback) {
+        workerHandler.post(() -> {
+            final T result;
+            try {
+                result = job.run();
+            } catch (Exception e) {
+                Log.e(TAG, "Background job failed", e);
+                return;
+            }
+            postToMain(() -> callback.onResult(result));
+        });
+    }
+
+    /**
+     * Run a task on the main (UI) thread, unless the worker has quit by then
+     */
+    void postToMain(Runnable task) {
+        if (quitting) return;
+        mainHandler.post(() -> {
+            if (!quitting) task.run();
+        });
+    }
+
+    /**
+     * Stop the worker once already queued work has drained. Results that
+     * jobs still draining post to the main thread are dropped, so nothing
+     * runs against a destroyed service. Call on the main thread.
+     */
+    void quit() {
+        quitting = true;
+        thread.quitSafely();
+        mainHandler.removeCallbacksAndMessages(null);
+    }
+}
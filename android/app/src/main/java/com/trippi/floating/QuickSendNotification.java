@@ -0,0 +1,173 @@
+package com.bikemessenger.floating;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.drawable.Icon;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * QuickSendNotification
+ *
+ * The foreground service notification, doubling as a second send surface:
+ * it shows the top ranked messages as actions (handled by QuickSendReceiver,
+ * no overlay window or JS involved) and the last sent/received alerts.
+ *
+ * The notification is built once at startup. Later updates reuse the same
+ * Builder, run on the worker thread and are throttled to one notify() per
+ * UPDATE_INTERVAL_MS. The last published notification is kept, so repeated
+ * startForeground() calls never revert it to the initial one.
+ */
+final class QuickSendNotification {
+
+    static final String CHANNEL_ID = "floating_overlay_channel";
+    static final int NOTIFICATION_ID = 1001;
+    static final int MAX_ACTIONS = 3;
+
+    private static final long UPDATE_INTERVAL_MS = 2000;
+
+    private final Context context;
+    private final OverlayWorker worker;
+    private final NotificationManager notificationManager;
+    private final Notification.Builder builder;
+    // Last built notification; written on the worker, read by startForeground() on main
+    private volatile Notification current;
+
+    // Worker-thread state
+    private List<MessageData> quickSends = new ArrayList<>();
+    private String lastSent;
+    private String lastReceived;
+    private long lastPublishTime = -UPDATE_INTERVAL_MS;
+    private boolean updatePending = false;
+    private boolean closed = false;
+    private final Runnable publishTask = this::publish;
+
+    /**
+     * Must be called on Android O+ (notification channels)
+     */
+    QuickSendNotification(Context context, OverlayWorker worker) {
+        this.context = context;
+        this.worker = worker;
+        this.notificationManager = context.getSystemService(NotificationManager.class);
+
+        NotificationChannel channel = new NotificationChannel(
+            CHANNEL_ID,
+            "Floating widget",
+            NotificationManager.IMPORTANCE_LOW
+        );
+        channel.setDescription("Shows when the bike messenger floating button is active");
+        if (notificationManager != null) notificationManager.createNotificationChannel(channel);
+
+        builder = new Notification.Builder(context, CHANNEL_ID)
+            .setContentTitle("Trippi")
+            .setContentText("Floating widget active")
+            .setSmallIcon(android.R.drawable.ic_dialog_info)
+            .setPriority(Notification.PRIORITY_LOW)
+            .setOnlyAlertOnce(true)
+            .setShowWhen(false)
+            .setOngoing(true);
+        current = builder.build();
+    }
+
+    /**
+     * The notification to pass to startForeground(), with the current
+     * quick-send actions and status
+     */
+    Notification notification() {
+        return current;
+    }
+
+    /**
+     * Replace the quick-send actions (may be called from any thread)
+     */
+    void setQuickSends(List<MessageData> messages) {
+        final List<MessageData> copy = new ArrayList<>(messages);
+        worker.execute(() -> {
+            quickSends = copy;
+            scheduleUpdate();
+        });
+    }
+
+    /**
+     * Record a sent alert. Worker thread only.
+     */
+    void onSent(String text) {
+        lastSent = text;
+        scheduleUpdate();
+    }
+
+    /**
+     * Record a received alert. Worker thread only.
+     */
+    void onReceived(String text) {
+        lastReceived = text;
+        scheduleUpdate();
+    }
+
+    /**
+     * Stop publishing and remove the notification (service is going away)
+     */
+    void close() {
+        worker.execute(() -> {
+            closed = true;
+            if (notificationManager != null) notificationManager.cancel(NOTIFICATION_ID);
+        });
+    }
+
+    private void scheduleUpdate() {
+        if (updatePending || closed) return;
+        updatePending = true;
+
+        long wait = lastPublishTime + UPDATE_INTERVAL_MS - SystemClock.uptimeMillis();
+        worker.executeDelayed(publishTask, Math.max(0, wait));
+    }
+
+    private void publish() {
+        updatePending = false;
+        lastPublishTime = SystemClock.uptimeMillis();
+        if (notificationManager == null || closed) return;
+
+        builder.setContentText(statusLine());
+
+        Notification.Action[] actions = new Notification.Action[Math.min(MAX_ACTIONS, quickSends.size())];
+        for (int i = 0; i < actions.length; i++) {
+            MessageData msg = quickSends.get(i);
+            actions[i] = new Notification.Action.Builder(
+                (Icon) null,
+                OverlayResources.getEmojiForIcon(msg.icon) + " " + msg.text,
+                quickSendIntent(i, msg)
+            ).build();
+        }
+        builder.setActions(actions);
+
+        current = builder.build();
+        notificationManager.notify(NOTIFICATION_ID, current);
+    }
+
+    private String statusLine() {
+        if (lastSent == null && lastReceived == null) return "Floating widget active";
+
+        StringBuilder line = new StringBuilder();
+        if (lastReceived != null) line.append("Received: ").append(lastReceived);
+        if (lastSent != null) {
+            if (line.length() > 0) line.append("  ·  ");
+            line.append("Sent: ").append(lastSent);
+        }
+        return line.toString();
+    }
+
+    private PendingIntent quickSendIntent(int slot, MessageData msg) {
+        Intent intent = new Intent(context, QuickSendReceiver.class);
+        intent.setAction(QuickSendReceiver.ACTION_QUICK_SEND);
+        intent.putExtra(QuickSendReceiver.EXTRA_MESSAGE_ID, msg.id);
+        intent.putExtra(QuickSendReceiver.EXTRA_MESSAGE_TEXT, msg.text);
+        return PendingIntent.getBroadcast(context, slot, intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+}
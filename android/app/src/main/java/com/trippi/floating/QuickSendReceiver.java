@@ -0,0 +1,40 @@
+package com.bikemessenger.floating;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+/**
+ * QuickSendReceiver
+ *
+ * Handles quick-send actions from the foreground notification. Hands the
+ * message straight to the running service's MessageSender: no overlay
+ * window is drawn and React Native is not started.
+ */
+public class QuickSendReceiver extends BroadcastReceiver {
+
+    private static final String TAG = "QuickSendReceiver";
+
+    static final String ACTION_QUICK_SEND = "com.bikemessenger.QUICK_SEND";
+    static final String EXTRA_MESSAGE_ID = "messageId";
+    static final String EXTRA_MESSAGE_TEXT = "messageText";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (!ACTION_QUICK_SEND.equals(intent.getAction())) return;
+
+        String messageId = intent.getStringExtra(EXTRA_MESSAGE_ID);
+        String messageText = intent.getStringExtra(EXTRA_MESSAGE_TEXT);
+        if (messageId == null || messageText == null) return;
+
+        OverlayResources resources = OverlayResources.active();
+        if (resources == null) {
+            // The notification only lives as long as the service; this is a stale tap
+            Log.w(TAG, "Quick send ignored, floating service not running");
+            return;
+        }
+        resources.sender().send(messageId, messageText,
+            System.currentTimeMillis(), MessageSender.SOURCE_NOTIFICATION);
+    }
+}
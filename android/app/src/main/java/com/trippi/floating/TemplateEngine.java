@@ -0,0 +1,237 @@
+package com.bikemessenger.floating;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * TemplateEngine
+ *
+ * Compiles message texts into MessageTemplates and renders them at send
+ * time with live values, so "ETA {eta}" never needs the JS runtime.
+ *
+ * Built-in placeholders:
+ *   {time}      local time, HH:mm
+ *   {location}  last known lat,lon
+ *   {speed}     last known speed, km/h
+ *   {distance}  trip distance, km with one decimal
+ *   {eta}       minutes to destination, e.g. "12 min"
+ *   {elapsed}   time since the trip started, H:mm
+ *   {sent}      messages sent this trip
+ *
+ * Snapshot messages are compiled once by precompile and the templates
+ * travel with the snapshot, however many messages it holds; a reload
+ * reuses the previous snapshot's templates for unchanged texts. Texts sent
+ * without a snapshot (notification quick sends) go through a small LRU
+ * cache instead. Not thread-safe: owned by the worker thread.
+ */
+final class TemplateEngine implements MessageTemplate.SlotResolver {
+
+    /**
+     * Wall clock; replaced with a fake in tests
+     */
+    interface Clock {
+        long currentTimeMillis();
+    }
+
+    /**
+     * Last known position; replaced with a fake in tests
+     */
+    interface LocationSource {
+        /**
+         * Fill out[0] = latitude, out[1] = longitude, out[2] = speed in m/s
+         * (NaN if unknown).
+         *
+         * @return false if no fix is available
+         */
+        boolean lastKnown(double[] out);
+    }
+
+    // Only for texts rendered without a snapshot template
+    private static final int MAX_CACHED_TEMPLATES = 64;
+
+    private final String[] names = {
+        "time", "location", "speed", "distance", "eta", "elapsed", "sent"
+    };
+    private final MessageTemplate.Placeholder[] placeholders;
+
+    private final Clock clock;
+    private final LocationSource location;
+    private final TripCounters trip;
+
+    private final double[] fix = new double[3];
+    private final StringBuilder renderBuffer = new StringBuilder(64);
+    private final Map<String, MessageTemplate> cache =
+        new LinkedHashMap<String, MessageTemplate>(32, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MessageTemplate> eldest) {
+                return size() > MAX_CACHED_TEMPLATES;
+            }
+        };
+
+    TemplateEngine(Clock clock, LocationSource location, TripCounters trip) {
+        this.clock = clock;
+        this.location = location;
+        this.trip = trip;
+        this.placeholders = new MessageTemplate.Placeholder[] {
+            this::appendTime,
+            this::appendLocation,
+            this::appendSpeed,
+            this::appendDistance,
+            this::appendEta,
+            this::appendElapsed,
+            this::appendSent,
+        };
+    }
+
+    @Override
+    public int slotOf(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the compiled template for a text outside any snapshot, from
+     *         cache when possible
+     */
+    MessageTemplate compile(String text) {
+        MessageTemplate template = cache.get(text);
+        if (template == null) {
+            template = MessageTemplate.compile(text, this);
+            cache.put(text, template);
+        }
+        return template;
+    }
+
+    /**
+     * Compile every message of a freshly parsed snapshot ahead of send time.
+     * Texts that previous (the same profile's last snapshot) already
+     * compiled are reused instead of parsed again.
+     *
+     * @return snapshot with its templates attached
+     */
+    MessageSnapshot precompile(MessageSnapshot snapshot, MessageSnapshot previous) {
+        Map<String, MessageTemplate> reusable = new HashMap<>(previous.size() * 2);
+        for (int i = 0; i < previous.size(); i++) {
+            MessageTemplate template = previous.templateAt(i);
+            if (template != null) reusable.put(template.source, template);
+        }
+
+        MessageTemplate[] compiled = new MessageTemplate[snapshot.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            String text = snapshot.messages.get(i).text;
+            MessageTemplate template = reusable.get(text);
+            if (template == null) {
+                template = MessageTemplate.compile(text, this);
+                reusable.put(text, template);
+            }
+            compiled[i] = template;
+        }
+        return snapshot.withTemplates(compiled);
+    }
+
+    /**
+     * Render text with current values. Texts without placeholders or
+     * escapes are returned as-is without copying.
+     */
+    String render(String text) {
+        return render(compile(text));
+    }
+
+    /**
+     * Render a template compiled by this engine with current values
+     */
+    String render(MessageTemplate template) {
+        if (!template.hasPlaceholders()) return template.literalText();
+
+        renderBuffer.setLength(0);
+        template.render(placeholders, renderBuffer);
+        return renderBuffer.toString();
+    }
+
+    int cachedTemplateCount() {
+        return cache.size();
+    }
+
+    // --- Placeholders ---
+
+    private boolean appendTime(StringBuilder out) {
+        long now = clock.currentTimeMillis();
+        long local = now + TimeZone.getDefault().getOffset(now);
+        long minutesOfDay = Math.floorMod(local / 60_000L, 24 * 60);
+        appendTwoDigits(out, (int) (minutesOfDay / 60));
+        out.append(':');
+        appendTwoDigits(out, (int) (minutesOfDay % 60));
+        return true;
+    }
+
+    private boolean appendLocation(StringBuilder out) {
+        if (!location.lastKnown(fix)) return false;
+        appendFixed(out, fix[0], 5);
+        out.append(',');
+        appendFixed(out, fix[1], 5);
+        return true;
+    }
+
+    private boolean appendSpeed(StringBuilder out) {
+        if (!location.lastKnown(fix) || Double.isNaN(fix[2])) return false;
+        out.append(Math.round(fix[2] * 3.6));
+        return true;
+    }
+
+    private boolean appendDistance(StringBuilder out) {
+        long meters = trip.getDistanceMeters();
+        if (meters == TripCounters.UNKNOWN) return false;
+        appendFixed(out, meters / 1000.0, 1);
+        return true;
+    }
+
+    private boolean appendEta(StringBuilder out) {
+        long minutes = trip.getEtaMinutes();
+        if (minutes == TripCounters.UNKNOWN) return false;
+        out.append(minutes).append(" min");
+        return true;
+    }
+
+    private boolean appendElapsed(StringBuilder out) {
+        long start = trip.getStartTimeMillis();
+        if (start == TripCounters.UNKNOWN) return false;
+        long minutes = Math.max(0, (clock.currentTimeMillis() - start) / 60_000L);
+        out.append(minutes / 60).append(':');
+        appendTwoDigits(out, (int) (minutes % 60));
+        return true;
+    }
+
+    private boolean appendSent(StringBuilder out) {
+        out.append(trip.getSentCount());
+        return true;
+    }
+
+    private static void appendTwoDigits(StringBuilder out, int value) {
+        if (value < 10) out.append('0');
+        out.append(value);
+    }
+
+    /**
+     * Append value with a fixed number of decimals, without String.format
+     */
+    static void appendFixed(StringBuilder out, double value, int decimals) {
+        long scale = 1;
+        for (int i = 0; i < decimals; i++) scale *= 10;
+
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) out.append('-');
+        out.append(scaled / scale);
+        if (decimals == 0) return;
+
+        out.append('.');
+        long fraction = scaled % scale;
+        for (long digit = scale / 10; digit > 1 && fraction < digit; digit /= 10) {
+            out.append('0');
+        }
+        out.append(fraction);
+    }
+}
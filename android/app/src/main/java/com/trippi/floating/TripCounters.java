@@ -0,0 +1,67 @@
+package com.bikemessenger.floating;
+
+/**
+ * TripCounters
+ *
+ * Process-wide ride state used by message templates ({distance}, {eta},
+ * {elapsed}, {sent}). React Native pushes distance and ETA through
+ * BikeMessengerModule; the send path counts sent messages. Fields are
+ * written and read from different threads, so they are volatile; only the
+ * worker thread increments the sent count.
+ */
+final class TripCounters {
+
+    private static final TripCounters INSTANCE = new TripCounters();
+
+    static final long UNKNOWN = -1;
+
+    private volatile long startTimeMillis = UNKNOWN;
+    private volatile long distanceMeters = UNKNOWN;
+    private volatile long etaMinutes = UNKNOWN;
+    private volatile int sentCount = 0;
+
+    TripCounters() {
+    }
+
+    static TripCounters get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Reset counters at the start of a ride
+     */
+    void startTrip(long nowMillis) {
+        startTimeMillis = nowMillis;
+        distanceMeters = UNKNOWN;
+        etaMinutes = UNKNOWN;
+        sentCount = 0;
+    }
+
+    void setDistanceMeters(long meters) {
+        distanceMeters = meters;
+    }
+
+    void setEtaMinutes(long minutes) {
+        etaMinutes = minutes;
+    }
+
+    void onMessageSent() {
+        sentCount++;
+    }
+
+    long getStartTimeMillis() {
+        return startTimeMillis;
+    }
+
+    long getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    long getEtaMinutes() {
+        return etaMinutes;
+    }
+
+    int getSentCount() {
+        return sentCount;
+    }
+}
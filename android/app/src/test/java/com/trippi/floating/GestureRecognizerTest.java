@@ -0,0 +1,123 @@
+package com.bikemessenger.floating;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Feeds synthetic touch streams through GestureRecognizer with the same
+ * thresholds OverlayProfile uses (in px instead of dp).
+ */
+public class GestureRecognizerTest {
+
+    private static final float SLOP = 10;
+    private static final long TAP_TIMEOUT = 300;
+    private static final long LONG_PRESS_TIMEOUT = 500;
+    private static final float SWIPE_MIN_DISTANCE = 48;
+    private static final long SWIPE_MAX_DURATION = 250;
+
+    private GestureRecognizer gestures;
+
+    @Before
+    public void setUp() {
+        gestures = new GestureRecognizer(
+            SLOP, TAP_TIMEOUT, LONG_PRESS_TIMEOUT, SWIPE_MIN_DISTANCE, SWIPE_MAX_DURATION);
+    }
+
+    @Test
+    public void quickPressInPlaceIsTap() {
+        gestures.onDown(100, 100, 0);
+        assertEquals(GestureRecognizer.NONE, gestures.onMove(103, 102, 50));
+        assertEquals(GestureRecognizer.TAP, gestures.onUp(103, 102, 120));
+    }
+
+    @Test
+    public void slowPressInPlaceIsNotTap() {
+        gestures.onDown(100, 100, 0);
+        assertEquals(GestureRecognizer.NONE, gestures.onUp(100, 100, TAP_TIMEOUT));
+    }
+
+    @Test
+    public void slowDragReportsOffsetsAndEnds() {
+        gestures.onDown(100, 100, 0);
+        assertEquals(GestureRecognizer.NONE, gestures.onMove(105, 100, 100));
+        assertEquals(GestureRecognizer.DRAG_START, gestures.onMove(120, 100, 200));
+        assertEquals(GestureRecognizer.DRAG, gestures.onMove(200, 160, 400));
+        assertEquals(100f, gestures.getDx(), 0f);
+        assertEquals(60f, gestures.getDy(), 0f);
+        assertEquals(GestureRecognizer.DRAG_END, gestures.onUp(220, 180, 800));
+    }
+
+    @Test
+    public void quickFlickIsSwipeInEachDirection() {
+        assertEquals(GestureRecognizer.SWIPE_LEFT, flick(-80, 10));
+        assertEquals(GestureRecognizer.SWIPE_RIGHT, flick(80, -10));
+        assertEquals(GestureRecognizer.SWIPE_UP, flick(10, -80));
+        assertEquals(GestureRecognizer.SWIPE_DOWN, flick(-10, 80));
+    }
+
+    @Test
+    public void quickShortFlickIsDragEnd() {
+        assertEquals(GestureRecognizer.DRAG_END, flick(30, 0));
+    }
+
+    @Test
+    public void longPressFiresOnceAfterTimeout() {
+        gestures.onDown(100, 100, 0);
+        assertEquals(GestureRecognizer.NONE, gestures.onTick(LONG_PRESS_TIMEOUT - 1));
+        assertEquals(GestureRecognizer.LONG_PRESS, gestures.onTick(LONG_PRESS_TIMEOUT));
+        assertEquals(GestureRecognizer.NONE, gestures.onTick(LONG_PRESS_TIMEOUT + 100));
+        assertEquals(GestureRecognizer.NONE, gestures.onUp(100, 100, 900));
+    }
+
+    @Test
+    public void longPressDoesNotFireOnceDragging() {
+        gestures.onDown(100, 100, 0);
+        assertEquals(GestureRecognizer.DRAG_START, gestures.onMove(130, 100, 100));
+        assertEquals(GestureRecognizer.NONE, gestures.onTick(LONG_PRESS_TIMEOUT));
+    }
+
+    @Test
+    public void holdThenDragStillMovesButton() {
+        gestures.onDown(100, 100, 0);
+        assertEquals(GestureRecognizer.LONG_PRESS, gestures.onTick(LONG_PRESS_TIMEOUT));
+        assertEquals(GestureRecognizer.NONE, gestures.onMove(104, 100, 550));
+        assertEquals(GestureRecognizer.DRAG_START, gestures.onMove(130, 100, 600));
+        assertEquals(GestureRecognizer.DRAG, gestures.onMove(180, 120, 700));
+        assertEquals(80f, gestures.getDx(), 0f);
+        assertEquals(GestureRecognizer.DRAG_END, gestures.onUp(180, 120, 800));
+    }
+
+    @Test
+    public void holdWithoutTickStillDrags() {
+        gestures.onDown(100, 100, 0);
+        assertEquals(GestureRecognizer.DRAG_START, gestures.onMove(100, 150, 900));
+        assertEquals(GestureRecognizer.DRAG_END, gestures.onUp(100, 150, 1000));
+    }
+
+    @Test
+    public void cancelWhileDraggingEndsDrag() {
+        gestures.onDown(100, 100, 0);
+        gestures.onMove(150, 100, 100);
+        assertEquals(GestureRecognizer.DRAG_END, gestures.onCancel());
+    }
+
+    @Test
+    public void cancelWhilePressedIsSilent() {
+        gestures.onDown(100, 100, 0);
+        assertEquals(GestureRecognizer.NONE, gestures.onCancel());
+        assertEquals(GestureRecognizer.NONE, gestures.onTick(LONG_PRESS_TIMEOUT));
+        assertEquals(GestureRecognizer.NONE, gestures.onMove(200, 200, 600));
+    }
+
+    /**
+     * Down at (100, 100), one move halfway, up at the given offset within
+     * the swipe time budget.
+     */
+    private int flick(float dx, float dy) {
+        gestures.onDown(100, 100, 0);
+        gestures.onMove(100 + dx / 2, 100 + dy / 2, 60);
+        return gestures.onUp(100 + dx, 100 + dy, 120);
+    }
+}
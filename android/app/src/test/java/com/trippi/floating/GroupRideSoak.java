@@ -0,0 +1,566 @@
+package com.bikemessenger.floating;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+/**
+ * GroupRideSoak
+ *
+ * Load-and-soak harness for the native message pipeline, runnable on a
+ * plain JVM. It simulates a group ride of hundreds of riders, each with
+ * their own MessageSnapshot, TemplateEngine, TripCounters and
+ * MessageSender. Riders talk through a LoopbackRelay, and the ride runs
+ * for hours of virtual time. Message list updates take the production
+ * path: JSON from the app, parsed, precompiled and indexed on the worker.
+ *
+ * Each rider's OverlayWorker is modelled by a VirtualWorker. It is a FIFO
+ * that runs at most workerTasksPerTick tasks per tick, so bursts build up
+ * real queue depth. Latency is measured in virtual time, from the moment a
+ * sender calls send() to the moment a recipient's listener sees the alert.
+ *
+ * Virtual time advances a fixed tickMillis per tick whatever the CPU cost,
+ * so it cannot catch a slow render or send path. The workers therefore
+ * also time every task with System.nanoTime() (service time, per task
+ * kind), and the run fails when send/receive service time or wall-clock
+ * throughput regress.
+ *
+ * Run from the command line with `java ... GroupRideSoak`, or through
+ * GroupRideSoakTest with -Dsoak.enabled=true. Parameters come from system
+ * properties (see Config).
+ */
+final class GroupRideSoak {
+
+    /**
+     * Soak parameters. Every field can be overridden with a system
+     * property of the same name prefixed by "soak.", e.g. -Dsoak.riders=500.
+     */
+    static final class Config {
+        int riders = Integer.getInteger("soak.riders", 200);
+        long simulatedHours = Long.getLong("soak.simulatedHours", 2);
+        long tickMillis = Long.getLong("soak.tickMillis", 10);
+        long burstIntervalMinutes = Long.getLong("soak.burstIntervalMinutes", 5);
+        // Average background messages per rider per simulated hour
+        int chatterPerRiderHour = Integer.getInteger("soak.chatterPerRiderHour", 6);
+        int workerTasksPerTick = Integer.getInteger("soak.workerTasksPerTick", 50);
+        long relayDelayMillis = Long.getLong("soak.relayDelayMillis", 80);
+        int relayJitterMillis = Integer.getInteger("soak.relayJitterMillis", 120);
+        long seed = Long.getLong("soak.seed", 42);
+
+        // Failure thresholds
+        long maxP99Millis = Long.getLong("soak.maxP99Millis", 1000);
+        long maxP999Millis = Long.getLong("soak.maxP999Millis", 2000);
+        long maxHeapGrowthBytes = Long.getLong("soak.maxHeapGrowthBytes", 32L * 1024 * 1024);
+        // Real worker time per task; well above desktop JVM numbers so only regressions fail
+        long maxSendServiceP50Nanos = Long.getLong("soak.maxSendServiceP50Nanos", 10_000);
+        long maxSendServiceP99Nanos = Long.getLong("soak.maxSendServiceP99Nanos", 250_000);
+        long maxReceiveServiceP99Nanos = Long.getLong("soak.maxReceiveServiceP99Nanos", 5_000);
+        // Sends + receives processed per wall-clock second
+        long minWallEventsPerSecond = Long.getLong("soak.minWallEventsPerSecond", 10_000);
+    }
+
+    /**
+     * Outcome of one soak run
+     */
+    static final class Report {
+        long sent;
+        long received;
+        long relayed;
+        double wallSeconds;
+        double simulatedSeconds;
+        long p50Millis;
+        long p99Millis;
+        long p999Millis;
+        long maxLatencyMillis;
+        // Worker service time per task kind, in ns: {p50, p99, p999, max}
+        final long[][] serviceNanos = new long[TASK_KIND_NAMES.length][];
+        double workerBusySeconds;
+        double wallEventsPerSecond;
+        int maxWorkerQueueDepth;
+        int maxRelayPending;
+        long gcCount;
+        long gcTimeMillis;
+        long heapGrowthBytes;
+        int maxCachedTemplates;
+        int maxUnread;
+        final List<String> failures = new ArrayList<>();
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            out.append("Group ride soak\n");
+            out.append(String.format("  simulated    %.0f s in %.1f s wall%n", simulatedSeconds, wallSeconds));
+            out.append(String.format("  sent         %d (%.0f/s wall)%n", sent, sent / wallSeconds));
+            out.append(String.format("  received     %d (%.0f/s wall)%n", received, received / wallSeconds));
+            out.append(String.format("  relayed      %d%n", relayed));
+            out.append(String.format("  latency      p50 %d ms, p99 %d ms, p999 %d ms, max %d ms%n",
+                p50Millis, p99Millis, p999Millis, maxLatencyMillis));
+            for (int kind = 0; kind < TASK_KIND_NAMES.length; kind++) {
+                long[] nanos = serviceNanos[kind];
+                out.append(String.format("  %-12s p50 %.1f us, p99 %.1f us, p999 %.1f us, max %.1f us%n",
+                    TASK_KIND_NAMES[kind] + " task", nanos[0] / 1e3, nanos[1] / 1e3,
+                    nanos[2] / 1e3, nanos[3] / 1e3));
+            }
+            out.append(String.format("  worker busy  %.2f s, %.0f events/s wall%n",
+                workerBusySeconds, wallEventsPerSecond));
+            out.append(String.format("  queue depth  worker max %d, relay max %d%n",
+                maxWorkerQueueDepth, maxRelayPending));
+            out.append(String.format("  gc           %d collections, %d ms%n", gcCount, gcTimeMillis));
+            out.append(String.format("  heap growth  %d KB%n", heapGrowthBytes / 1024));
+            out.append(String.format("  templates    max %d cached per rider%n", maxCachedTemplates));
+            out.append(String.format("  unread       max %d per rider%n", maxUnread));
+            for (String failure : failures) {
+                out.append("  FAIL ").append(failure).append('\n');
+            }
+            return out.toString();
+        }
+    }
+
+    // Worker task kinds, for service time histograms
+    static final int TASK_SEND = 0;
+    static final int TASK_RECEIVE = 1;
+    static final int TASK_SNAPSHOT = 2;
+    static final String[] TASK_KIND_NAMES = {"send", "receive", "snapshot"};
+
+    // Service time histogram resolution and range: 100 ns buckets up to 10 ms
+    private static final long SERVICE_BUCKET_NANOS = 100;
+    private static final int SERVICE_BUCKETS = 100_000;
+
+    /**
+     * Real (wall-clock) time the workers spend running tasks, per task kind.
+     * The harness sets submitting before handing work to a sender, so each
+     * queued task remembers what it is.
+     */
+    static final class ServiceTimes {
+        // Buckets of SERVICE_BUCKET_NANOS
+        final LatencyHistogram[] histograms = new LatencyHistogram[TASK_KIND_NAMES.length];
+        int submitting = TASK_RECEIVE;
+        boolean recording;
+        long busyNanos;
+
+        ServiceTimes() {
+            for (int kind = 0; kind < histograms.length; kind++) {
+                histograms[kind] = new LatencyHistogram(SERVICE_BUCKETS);
+            }
+        }
+
+        void record(int kind, long nanos) {
+            if (!recording) return;
+            histograms[kind].record(nanos / SERVICE_BUCKET_NANOS);
+            busyNanos += nanos;
+        }
+
+        /** @return {p50, p99, p999, max} in ns */
+        long[] summary(int kind) {
+            LatencyHistogram histogram = histograms[kind];
+            return new long[] {
+                histogram.percentile(0.50) * SERVICE_BUCKET_NANOS,
+                histogram.percentile(0.99) * SERVICE_BUCKET_NANOS,
+                histogram.percentile(0.999) * SERVICE_BUCKET_NANOS,
+                histogram.max() * SERVICE_BUCKET_NANOS,
+            };
+        }
+    }
+
+    /**
+     * Stand-in for OverlayWorker: a FIFO drained by the harness with a
+     * fixed per-tick budget. Every task is timed with System.nanoTime().
+     */
+    static final class VirtualWorker implements Executor {
+        private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+        // Kind of each queued task (small Integers are cached, so this doesn't allocate)
+        private final ArrayDeque<Integer> kinds = new ArrayDeque<>();
+        private final ServiceTimes serviceTimes;
+        private int maxDepth;
+
+        VirtualWorker(ServiceTimes serviceTimes) {
+            this.serviceTimes = serviceTimes;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            queue.add(task);
+            kinds.add(serviceTimes.submitting);
+            if (queue.size() > maxDepth) maxDepth = queue.size();
+        }
+
+        void drain(int budget) {
+            Runnable task;
+            while (budget-- > 0 && (task = queue.poll()) != null) {
+                int kind = kinds.poll();
+                long start = System.nanoTime();
+                task.run();
+                serviceTimes.record(kind, System.nanoTime() - start);
+            }
+        }
+
+        int depth() {
+            return queue.size();
+        }
+
+        int maxDepth() {
+            return maxDepth;
+        }
+    }
+
+    /**
+     * Virtual wall clock shared by the whole ride
+     */
+    static final class VirtualClock implements TemplateEngine.Clock {
+        long now = 1_700_000_000_000L;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+    }
+
+    private static final String STOP_ID = "stop";
+
+    private static final String[] MESSAGE_TEXTS = {
+        "🛑 Stop", "Fuel at {distance} km", "ETA {eta}", "Stopped at {time}",
+        "Slow down", "Coffee break", "Police ahead", "Pothole",
+        "Regroup at {location}", "Riding {speed} km/h", "All good", "Need help",
+        "Turn left", "Turn right", "Rain ahead", "Photo stop",
+        "Trip time {elapsed}", "Sent {sent} alerts", "Home", "Flat tyre",
+    };
+
+    private final Config config;
+    private final VirtualClock clock = new VirtualClock();
+    private final LatencyHistogram latency = new LatencyHistogram(60_000);
+    private final ServiceTimes serviceTimes = new ServiceTimes();
+
+    private final List<VirtualWorker> workers = new ArrayList<>();
+    private final List<TemplateEngine> engines = new ArrayList<>();
+    private final List<TripCounters> trips = new ArrayList<>();
+    private final List<MessageSender> senders = new ArrayList<>();
+    private LoopbackRelay relay;
+
+    // Per rider, as OverlayProfile holds them: the swapped-in snapshot, and
+    // the last snapshot and index the worker builds the next ones from
+    private MessageSnapshot[] snapshots;
+    private MessageSnapshot[] workerSnapshots;
+    private MessageIndex[] workerIndexes;
+    private long[] snapshotVersions;
+
+    // Per rider receive state, as QuickSendNotification and the unread badge keep it
+    private String[] lastReceived;
+    private int[] unread;
+    private int maxUnread;
+
+    private long sent;
+    private long received;
+
+    GroupRideSoak(Config config) {
+        this.config = config;
+    }
+
+    Report run() {
+        setUpRiders();
+
+        long ticksPerHour = 3_600_000L / config.tickMillis;
+        long totalTicks = config.simulatedHours * ticksPerHour;
+        long burstEveryTicks = config.burstIntervalMinutes * 60_000L / config.tickMillis;
+        double chatterPerTick = config.chatterPerRiderHour / (double) ticksPerHour;
+        Random random = new Random(config.seed);
+
+        // Warm up for one burst interval before taking the heap/GC baseline
+        long warmupTicks = Math.min(burstEveryTicks, totalTicks);
+        for (long tick = 0; tick < warmupTicks; tick++) {
+            step(tick, burstEveryTicks, chatterPerTick, random);
+        }
+        long heapBefore = usedHeapAfterGc();
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTimeMillis();
+        long sentBefore = sent;
+        long receivedBefore = received;
+        serviceTimes.recording = true;
+        long wallStart = System.nanoTime();
+
+        for (long tick = warmupTicks; tick < totalTicks; tick++) {
+            step(tick, burstEveryTicks, chatterPerTick, random);
+        }
+        // Let in-flight traffic settle without new sends
+        long settleTicks = 0;
+        while ((relay.pending() > 0 || anyQueued()) && settleTicks++ < ticksPerHour) {
+            advance();
+        }
+
+        long wallNanos = System.nanoTime() - wallStart;
+        long events = sent - sentBefore + received - receivedBefore;
+        return buildReport(wallNanos, events, totalTicks, heapBefore, gcCountBefore, gcTimeBefore);
+    }
+
+    private void setUpRiders() {
+        relay = new LoopbackRelay(config.tickMillis, config.relayDelayMillis,
+            config.relayJitterMillis, config.seed);
+        snapshots = new MessageSnapshot[config.riders];
+        workerSnapshots = new MessageSnapshot[config.riders];
+        workerIndexes = new MessageIndex[config.riders];
+        snapshotVersions = new long[config.riders];
+        lastReceived = new String[config.riders];
+        unread = new int[config.riders];
+
+        for (int i = 0; i < config.riders; i++) {
+            final int rider = i;
+            VirtualWorker worker = new VirtualWorker(serviceTimes);
+            TripCounters trip = new TripCounters();
+            trip.startTrip(clock.now);
+            trip.setEtaMinutes(90);
+            TemplateEngine engine = new TemplateEngine(clock, out -> {
+                // Riders spread out along a road heading north
+                out[0] = 48.0 + rider * 0.0001 + (clock.now % 3_600_000L) * 1e-9;
+                out[1] = 11.5;
+                out[2] = 12.5;
+                return true;
+            }, trip);
+
+
+            MessageSender sender = new MessageSender(worker, engine, trip, relay.transportFor(rider));
+            sender.setListener(new MessageSender.Listener() {
+                @Override
+                public void onSent(String messageId, String text, long timestamp, int source) {
+                    sent++;
+                }
+
+                @Override
+                public void onReceived(String text, long timestamp) {
+                    received++;
+                    lastReceived[rider] = text;
+                    if (++unread[rider] > maxUnread) maxUnread = unread[rider];
+                    latency.record(clock.now - timestamp);
+                }
+            });
+
+            workers.add(worker);
+            trips.add(trip);
+            engines.add(engine);
+            senders.add(sender);
+
+            snapshots[rider] = MessageSnapshot.EMPTY;
+            workerSnapshots[rider] = MessageSnapshot.EMPTY;
+            workerIndexes[rider] = MessageIndex.EMPTY;
+            loadMessages(rider, ++snapshotVersions[rider], messagesJson(1));
+            snapshots[rider] = workerSnapshots[rider];
+        }
+        relay.attach(senders);
+    }
+
+    /**
+     * The message list as the app sends it to the service
+     */
+    private static String messagesJson(long version) {
+        JSONArray array = new JSONArray();
+        for (int m = 0; m < MESSAGE_TEXTS.length; m++) {
+            // Every few versions a rider edits one message, so reloads are not all reuse
+            String text = m == MESSAGE_TEXTS.length - 1
+                ? MESSAGE_TEXTS[m] + " v" + version
+                : MESSAGE_TEXTS[m];
+            try {
+                array.put(new JSONObject()
+                    .put("id", m == 0 ? STOP_ID : "msg-" + m)
+                    .put("text", text)
+                    .put("icon", "motorbike")
+                    .put("color", "#FF6B35")
+                    .put("order", m)
+                    .put("sendCount", 0));
+            } catch (JSONException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return array.toString();
+    }
+
+    /**
+     * Worker half of OverlayProfile.loadMessages: parse, precompile against
+     * the rider's last snapshot and update its search index
+     */
+    private void loadMessages(int rider, long version, String json) {
+        try {
+            MessageSnapshot parsed = MessageSnapshot.parse(version, json);
+            workerSnapshots[rider] = engines.get(rider).precompile(parsed, workerSnapshots[rider]);
+            workerIndexes[rider] = MessageIndex.build(workerSnapshots[rider], workerIndexes[rider]);
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void step(long tick, long burstEveryTicks, double chatterPerTick, Random random) {
+        // Everyone hits the brakes at once
+        if (tick > 0 && tick % burstEveryTicks == 0) {
+            for (int i = 0; i < senders.size(); i++) {
+                send(i, snapshots[i].findById(STOP_ID));
+            }
+        }
+
+        // Background chatter and occasional snapshot updates from the app
+        for (int i = 0; i < senders.size(); i++) {
+            if (random.nextDouble() < chatterPerTick) {
+                MessageSnapshot snapshot = snapshots[i];
+                send(i, snapshot.messages.get(random.nextInt(snapshot.size())));
+            }
+            if (random.nextDouble() < chatterPerTick / 4) {
+                updateSnapshot(i);
+            }
+        }
+
+        if (tick % 6_000 == 0) {
+            for (TripCounters trip : trips) {
+                trip.setDistanceMeters(tick * config.tickMillis / 100);
+            }
+        }
+
+        advance();
+    }
+
+    private void send(int rider, MessageData msg) {
+        // Sending opens the menu, which clears the unread badge
+        unread[rider] = 0;
+        serviceTimes.submitting = TASK_SEND;
+        MessageTemplate template = snapshots[rider].templateFor(msg);
+        senders.get(rider).send(msg.id, template, clock.now, MessageSender.SOURCE_OVERLAY);
+        serviceTimes.submitting = TASK_RECEIVE;
+    }
+
+    /**
+     * Same path as OverlayProfile.loadMessages: the app's JSON is parsed,
+     * precompiled and indexed on the worker, then the result is swapped in
+     * unless a newer update overtook it
+     */
+    private void updateSnapshot(int rider) {
+        final long version = ++snapshotVersions[rider];
+        final String json = messagesJson(version);
+        serviceTimes.submitting = TASK_SNAPSHOT;
+        workers.get(rider).execute(() -> {
+            loadMessages(rider, version, json);
+            if (version == snapshotVersions[rider]) {
+                snapshots[rider] = workerSnapshots[rider];
+            }
+        });
+        serviceTimes.submitting = TASK_RECEIVE;
+    }
+
+    private void advance() {
+        clock.now += config.tickMillis;
+        relay.tick(clock.now);
+        for (int i = 0; i < workers.size(); i++) {
+            workers.get(i).drain(config.workerTasksPerTick);
+        }
+    }
+
+    private boolean anyQueued() {
+        for (VirtualWorker worker : workers) {
+            if (worker.depth() > 0) return true;
+        }
+        return false;
+    }
+
+    private Report buildReport(long wallNanos, long events, long totalTicks,
+                               long heapBefore, long gcCountBefore, long gcTimeBefore) {
+        Report report = new Report();
+        report.sent = sent;
+        report.received = received;
+        report.relayed = relay.relayed();
+        report.wallSeconds = wallNanos / 1e9;
+        report.simulatedSeconds = totalTicks * config.tickMillis / 1000.0;
+        report.p50Millis = latency.percentile(0.50);
+        report.p99Millis = latency.percentile(0.99);
+        report.p999Millis = latency.percentile(0.999);
+        report.maxLatencyMillis = latency.max();
+        for (int kind = 0; kind < TASK_KIND_NAMES.length; kind++) {
+            report.serviceNanos[kind] = serviceTimes.summary(kind);
+        }
+        report.workerBusySeconds = serviceTimes.busyNanos / 1e9;
+        report.wallEventsPerSecond = events / report.wallSeconds;
+        report.maxRelayPending = relay.maxPending();
+        report.gcCount = gcCount() - gcCountBefore;
+        report.gcTimeMillis = gcTimeMillis() - gcTimeBefore;
+
+        for (VirtualWorker worker : workers) {
+            report.maxWorkerQueueDepth = Math.max(report.maxWorkerQueueDepth, worker.maxDepth());
+        }
+        for (TemplateEngine engine : engines) {
+            report.maxCachedTemplates = Math.max(report.maxCachedTemplates, engine.cachedTemplateCount());
+        }
+        report.maxUnread = maxUnread;
+
+        // Riders, snapshots and histograms are all allocated before the
+        // baseline, so growth here means the pipeline is retaining something
+        report.heapGrowthBytes = usedHeapAfterGc() - heapBefore;
+
+        if (report.p99Millis > config.maxP99Millis) {
+            report.failures.add("p99 latency " + report.p99Millis + " ms > " + config.maxP99Millis + " ms");
+        }
+        if (report.p999Millis > config.maxP999Millis) {
+            report.failures.add("p999 latency " + report.p999Millis + " ms > " + config.maxP999Millis + " ms");
+        }
+        checkServiceTime(report, "send p50", report.serviceNanos[TASK_SEND][0],
+            config.maxSendServiceP50Nanos);
+        checkServiceTime(report, "send p99", report.serviceNanos[TASK_SEND][1],
+            config.maxSendServiceP99Nanos);
+        checkServiceTime(report, "receive p99", report.serviceNanos[TASK_RECEIVE][1],
+            config.maxReceiveServiceP99Nanos);
+        if (report.wallEventsPerSecond < config.minWallEventsPerSecond) {
+            report.failures.add(String.format("wall throughput %.0f events/s < %d events/s",
+                report.wallEventsPerSecond, config.minWallEventsPerSecond));
+        }
+        if (report.heapGrowthBytes > config.maxHeapGrowthBytes) {
+            report.failures.add("heap grew by " + report.heapGrowthBytes / 1024 + " KB");
+        }
+        if (relay.pending() > 0 || anyQueued()) {
+            report.failures.add("traffic still queued after settling: relay "
+                + relay.pending() + ", workers not drained");
+        }
+        if (report.received != report.relayed) {
+            report.failures.add("received " + report.received + " of " + report.relayed + " relayed");
+        }
+        return report;
+    }
+
+    private static void checkServiceTime(Report report, String what, long nanos, long maxNanos) {
+        if (nanos > maxNanos) {
+            report.failures.add("service time " + what + " " + nanos / 1000 + " us > "
+                + maxNanos / 1000 + " us");
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long gcTimeMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    public static void main(String[] args) {
+        Report report = new GroupRideSoak(new Config()).run();
+        System.out.print(report);
+        if (!report.failures.isEmpty()) {
+            System.exit(1);
+        }
+    }
+}
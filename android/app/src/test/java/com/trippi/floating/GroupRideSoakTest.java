@@ -0,0 +1,38 @@
+package com.bikemessenger.floating;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Runs the group ride soak. The default run is a short smoke ride; the
+ * full soak (200 riders, two simulated hours by default) is opt-in with
+ * -Dsoak.enabled=true and tuned with other -Dsoak.* system properties,
+ * e.g. -Dsoak.simulatedHours=8 for a longer soak.
+ */
+public class GroupRideSoakTest {
+
+    @Test
+    public void shortRideStaysWithinBudgets() {
+        // About a second of wall time: fewer riders and coarser ticks, same worker rate
+        GroupRideSoak.Config config = new GroupRideSoak.Config();
+        config.riders = 50;
+        config.simulatedHours = 1;
+        config.tickMillis = 50;
+        config.workerTasksPerTick = 250;
+        assertPasses(new GroupRideSoak(config).run());
+    }
+
+    @Test
+    public void groupRideStaysWithinLatencyAndMemoryBudgets() {
+        Assume.assumeTrue("set -Dsoak.enabled=true to run", Boolean.getBoolean("soak.enabled"));
+
+        assertPasses(new GroupRideSoak(new GroupRideSoak.Config()).run());
+    }
+
+    private static void assertPasses(GroupRideSoak.Report report) {
+        assertTrue(report.toString(), report.sent > 0);
+        assertTrue(report.toString(), report.failures.isEmpty());
+    }
+}
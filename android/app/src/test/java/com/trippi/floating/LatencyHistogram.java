@@ -0,0 +1,44 @@
+package com.bikemessenger.floating;
+
+/**
+ * Fixed-size latency histogram with one bucket per unit (the soak uses ms
+ * for end-to-end latency and 100 ns for worker service time). Recording never
+ * allocates, so it does not disturb the GC counts the soak harness reports.
+ * Values above the last bucket are clamped into it.
+ */
+final class LatencyHistogram {
+
+    private final long[] buckets;
+    private long count;
+    private long max;
+
+    LatencyHistogram(int maxValue) {
+        buckets = new long[maxValue + 1];
+    }
+
+    void record(long value) {
+        int bucket = (int) Math.max(0, Math.min(value, buckets.length - 1));
+        buckets[bucket]++;
+        count++;
+        if (value > max) max = value;
+    }
+
+    long max() {
+        return max;
+    }
+
+    /**
+     * @param quantile e.g. 0.99
+     * @return smallest bucket at or below which the quantile falls
+     */
+    long percentile(double quantile) {
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) return i;
+        }
+        return buckets.length - 1;
+    }
+}
@@ -0,0 +1,102 @@
+package com.bikemessenger.floating;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * LoopbackRelay
+ *
+ * In-process stand-in for the group relay server (FCM / WebSocket fan-out).
+ * Every delivered message is handed to all other riders' receive path after
+ * a simulated network delay. Pending deliveries sit in a timing wheel of
+ * per-tick slots, so the relay runs on the harness's virtual clock.
+ */
+final class LoopbackRelay {
+
+    private static final class Delivery {
+        final int fromRider;
+        final String text;
+        final long timestamp;
+
+        Delivery(int fromRider, String text, long timestamp) {
+            this.fromRider = fromRider;
+            this.text = text;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private final List<ArrayDeque<Delivery>> wheel;
+    private final long tickMillis;
+    private final long baseDelayMillis;
+    private final int jitterMillis;
+    private final Random random;
+
+    private List<MessageSender> riders;
+    private long currentTick;
+    private int pending;
+    private int maxPending;
+    private long relayed;
+
+    LoopbackRelay(long tickMillis, long baseDelayMillis, int jitterMillis, long seed) {
+        this.tickMillis = tickMillis;
+        this.baseDelayMillis = baseDelayMillis;
+        this.jitterMillis = jitterMillis;
+        this.random = new Random(seed);
+
+        int slots = (int) ((baseDelayMillis + jitterMillis) / tickMillis) + 2;
+        wheel = new ArrayList<>(slots);
+        for (int i = 0; i < slots; i++) {
+            wheel.add(new ArrayDeque<>());
+        }
+    }
+
+    void attach(List<MessageSender> riders) {
+        this.riders = riders;
+    }
+
+    /**
+     * Transport for one rider's MessageSender
+     */
+    MessageSender.Transport transportFor(int rider) {
+        return (messageId, text, timestamp) -> {
+            long delay = baseDelayMillis + (jitterMillis > 0 ? random.nextInt(jitterMillis) : 0);
+            long ticksAhead = Math.max(1, delay / tickMillis);
+            wheel.get((int) ((currentTick + ticksAhead) % wheel.size()))
+                .add(new Delivery(rider, text, timestamp));
+            pending++;
+            if (pending > maxPending) maxPending = pending;
+        };
+    }
+
+    /**
+     * Advance one tick and fan out everything due in it
+     */
+    void tick(long now) {
+        currentTick++;
+        ArrayDeque<Delivery> due = wheel.get((int) (currentTick % wheel.size()));
+        Delivery delivery;
+        while ((delivery = due.poll()) != null) {
+            pending--;
+            for (int i = 0; i < riders.size(); i++) {
+                if (i != delivery.fromRider) {
+                    riders.get(i).receive(delivery.text, delivery.timestamp);
+                    relayed++;
+                }
+            }
+        }
+    }
+
+    int pending() {
+        return pending;
+    }
+
+    int maxPending() {
+        return maxPending;
+    }
+
+    long relayed() {
+        return relayed;
+    }
+}
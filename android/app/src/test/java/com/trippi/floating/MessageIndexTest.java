@@ -0,0 +1,120 @@
+package com.bikemessenger.floating;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MessageIndexTest {
+
+    private static MessageSnapshot snapshot(long version, String... textsAndIcons) {
+        List<MessageData> messages = new ArrayList<>();
+        for (int i = 0; i < textsAndIcons.length; i += 2) {
+            messages.add(new MessageData("m" + i, textsAndIcons[i], textsAndIcons[i + 1], "#FFFFFF"));
+        }
+        return new MessageSnapshot(version, messages);
+    }
+
+    private static int[] matches(MessageIndex.Searcher searcher, String query) {
+        int[] out = new int[searcher.search(query)];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = searcher.matchAt(i);
+        }
+        return out;
+    }
+
+    private final MessageSnapshot rideMessages = snapshot(1,
+        "🛑 Stop", "stop",
+        "Fuel at {distance} km", "fuel",
+        "Police ahead", "police",
+        "Pothole ahead", "warning",
+        "Stopped at {time}", "clock");
+
+    @Test
+    public void emptyQueryMatchesEverythingInOrder() {
+        MessageIndex.Searcher searcher = MessageIndex.build(rideMessages, MessageIndex.EMPTY).newSearcher();
+        assertEquals(5, searcher.matchCount());
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, matches(searcher, ""));
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, matches(searcher, "  "));
+    }
+
+    @Test
+    public void termsArePrefixesOfTextOrIconTokens() {
+        MessageIndex.Searcher searcher = MessageIndex.build(rideMessages, MessageIndex.EMPTY).newSearcher();
+        assertArrayEquals(new int[] {0, 4}, matches(searcher, "sto"));
+        assertArrayEquals(new int[] {2, 3}, matches(searcher, "AHEAD"));
+        assertArrayEquals(new int[] {3}, matches(searcher, "warn"));
+        assertArrayEquals(new int[] {4}, matches(searcher, "time"));
+    }
+
+    @Test
+    public void everyTermMustMatch() {
+        MessageIndex.Searcher searcher = MessageIndex.build(rideMessages, MessageIndex.EMPTY).newSearcher();
+        assertArrayEquals(new int[] {3}, matches(searcher, "ahead pot"));
+        assertArrayEquals(new int[0], matches(searcher, "ahead fuel"));
+        assertArrayEquals(new int[0], matches(searcher, "xyz"));
+    }
+
+    @Test
+    public void tokenizeSplitsLowercasesAndDeduplicates() {
+        assertArrayEquals(new String[] {"eta", "eta2", "min", "clock"},
+            MessageIndex.tokenize("ETA, eta2 - eta min", "clock"));
+        assertArrayEquals(new String[0], MessageIndex.tokenize("🛑 !!", null));
+    }
+
+    @Test
+    public void rebuildReusesTokensOfUnchangedMessages() {
+        MessageIndex first = MessageIndex.build(rideMessages, MessageIndex.EMPTY);
+        MessageSnapshot edited = snapshot(2,
+            "Police ahead", "police",
+            "Regroup at {location}", "group");
+        MessageIndex second = MessageIndex.build(edited, first);
+
+        assertEquals(2, second.messageCount());
+        MessageIndex.Searcher searcher = second.newSearcher();
+        assertArrayEquals(new int[] {1}, matches(searcher, "reg"));
+        assertArrayEquals(new int[] {0}, matches(searcher, "pol"));
+        assertArrayEquals(new int[0], matches(searcher, "fuel"));
+    }
+
+    @Test
+    public void thousandsOfMessagesFilterQuickly() {
+        String[] textsAndIcons = new String[2 * 5000];
+        for (int i = 0; i < 5000; i++) {
+            textsAndIcons[2 * i] = "Message " + i + " near exit " + (i % 97);
+            textsAndIcons[2 * i + 1] = i % 2 == 0 ? "motorbike" : "warning";
+        }
+        MessageIndex.Searcher searcher =
+            MessageIndex.build(snapshot(1, textsAndIcons), MessageIndex.EMPTY).newSearcher();
+
+        // Warm up, then time a typed query keystroke by keystroke
+        String query = "warn exit 4";
+        for (int i = 0; i < 200; i++) {
+            searcher.search(query);
+        }
+        long start = System.nanoTime();
+        for (int length = 1; length <= query.length(); length++) {
+            searcher.search(query.substring(0, length));
+        }
+        long perKeystrokeNanos = (System.nanoTime() - start) / query.length();
+
+        // Brute force: odd (warning) messages whose number or exit starts with 4
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 1; i < 5000; i += 2) {
+            if (Integer.toString(i).startsWith("4") || Integer.toString(i % 97).startsWith("4")) {
+                expected.add(i);
+            }
+        }
+        int[] found = matches(searcher, query);
+        assertEquals(expected.size(), found.length);
+        for (int i = 0; i < found.length; i++) {
+            assertEquals((int) expected.get(i), found[i]);
+        }
+        // One 60 Hz frame is ~16 ms; stay far below it
+        assertTrue("search took " + perKeystrokeNanos + " ns", perKeystrokeNanos < 4_000_000);
+    }
+}
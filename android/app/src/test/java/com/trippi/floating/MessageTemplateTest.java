@@ -0,0 +1,83 @@
+package com.bikemessenger.floating;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Compiles templates against two fake placeholders: {a} renders "A",
+ * {none} has no value.
+ */
+public class MessageTemplateTest {
+
+    private static final MessageTemplate.SlotResolver RESOLVER = name -> {
+        if (name.equals("a")) return 0;
+        if (name.equals("none")) return 1;
+        return -1;
+    };
+
+    private static final MessageTemplate.Placeholder[] PLACEHOLDERS = {
+        out -> {
+            out.append('A');
+            return true;
+        },
+        out -> false,
+    };
+
+    private static String render(String source) {
+        MessageTemplate template = MessageTemplate.compile(source, RESOLVER);
+        if (!template.hasPlaceholders()) return template.literalText();
+        StringBuilder out = new StringBuilder();
+        template.render(PLACEHOLDERS, out);
+        return out.toString();
+    }
+
+    @Test
+    public void plainTextKeepsSourceInstance() {
+        String source = "🛑 Stop";
+        MessageTemplate template = MessageTemplate.compile(source, RESOLVER);
+        assertFalse(template.hasPlaceholders());
+        assertSame(source, template.literalText());
+    }
+
+    @Test
+    public void placeholdersAreFilledInPlace() {
+        assertEquals("A", render("{a}"));
+        assertEquals("x A y A z", render("x {a} y {a} z"));
+        assertEquals("AA", render("{a}{a}"));
+    }
+
+    @Test
+    public void missingValueRendersDashes() {
+        assertEquals("at -- now", render("at {none} now"));
+    }
+
+    @Test
+    public void unknownAndUnterminatedBracesStayLiteral() {
+        assertEquals("{b} A", render("{b} {a}"));
+        assertEquals("A {a", render("{a} {a"));
+        assertEquals("lone } brace", render("lone } brace"));
+    }
+
+    @Test
+    public void escapesWorkWithoutPlaceholders() {
+        MessageTemplate template = MessageTemplate.compile("Use {{ and }} only", RESOLVER);
+        assertFalse(template.hasPlaceholders());
+        assertEquals("Use { and } only", template.literalText());
+    }
+
+    @Test
+    public void escapesWorkNextToPlaceholders() {
+        assertEquals("{ A }", render("{{ {a} }}"));
+        assertEquals("{a}", render("{{a}}"));
+        assertEquals("A}", render("{a}}"));
+    }
+
+    @Test
+    public void compiledTemplateHasPlaceholders() {
+        assertTrue(MessageTemplate.compile("ETA {a}", RESOLVER).hasPlaceholders());
+    }
+}
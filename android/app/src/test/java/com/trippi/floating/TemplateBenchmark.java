@@ -0,0 +1,206 @@
+package com.bikemessenger.floating;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * TemplateBenchmark
+ *
+ * JMH-style microbenchmark for TemplateEngine, runnable on a plain JVM.
+ * Each case runs warmup iterations, then measurement iterations of a fixed
+ * duration, and reports the mean and best ns/op and bytes allocated per
+ * op on the benchmark thread. Results are consumed into a blackhole so the
+ * JIT cannot drop the work.
+ *
+ * Cases:
+ *   compile        MessageTemplate.compile of a template with 3 placeholders
+ *   renderCached   TemplateEngine.render through the template cache
+ *   renderPlain    render of a text without placeholders (cache + fast path)
+ *   renderNoCache  render of distinct texts, so every call compiles
+ *
+ * Run from the command line with `java ... TemplateBenchmark`, or through
+ * TemplateBenchmarkTest with -Dbench.enabled=true. Parameters come from
+ * system properties (see Config).
+ */
+final class TemplateBenchmark {
+
+    /**
+     * Benchmark parameters, overridable with "bench." system properties,
+     * e.g. -Dbench.measureIterations=10
+     */
+    static final class Config {
+        int warmupIterations = Integer.getInteger("bench.warmupIterations", 3);
+        int measureIterations = Integer.getInteger("bench.measureIterations", 5);
+        long iterationMillis = Long.getLong("bench.iterationMillis", 200);
+
+        // Failure thresholds; generous so that only order-of-magnitude regressions fail
+        long maxRenderNanos = Long.getLong("bench.maxRenderNanos", 5_000);
+        long maxRenderBytes = Long.getLong("bench.maxRenderBytes", 512);
+    }
+
+    /**
+     * Measured cost of one case
+     */
+    static final class Result {
+        final String name;
+        final double meanNanos;
+        final double bestNanos;
+        final double bytesPerOp;
+
+        Result(String name, double meanNanos, double bestNanos, double bytesPerOp) {
+            this.name = name;
+            this.meanNanos = meanNanos;
+            this.bestNanos = bestNanos;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "  %-14s %9.1f ns/op (best %.1f)  %7.1f B/op",
+                name, meanNanos, bestNanos, bytesPerOp);
+        }
+    }
+
+    /**
+     * Outcome of one benchmark run
+     */
+    static final class Report {
+        final List<Result> results = new ArrayList<>();
+        final List<String> failures = new ArrayList<>();
+        long checksum;
+
+        Result get(String name) {
+            for (Result result : results) {
+                if (result.name.equals(name)) return result;
+            }
+            throw new IllegalArgumentException(name);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder("Template benchmark (checksum ")
+                .append(checksum).append(")\n");
+            for (Result result : results) {
+                out.append(result).append('\n');
+            }
+            for (String failure : failures) {
+                out.append("  FAIL ").append(failure).append('\n');
+            }
+            return out.toString();
+        }
+    }
+
+    /**
+     * One benchmarked operation; returns something derived from its work
+     */
+    private interface Op {
+        int run(int i);
+    }
+
+    private static final int BATCH = 1024;
+    private static final String TEMPLATE = "ETA {eta}, {distance} km, at {time}";
+    private static final String PLAIN = "🛑 Stop";
+
+    private final Config config;
+    // Blackhole: every op result is folded in and reported, so nothing is dead code
+    private long sink;
+
+    TemplateBenchmark(Config config) {
+        this.config = config;
+    }
+
+    Report run() {
+        TripCounters trip = new TripCounters();
+        trip.startTrip(0);
+        trip.setDistanceMeters(12_345);
+        trip.setEtaMinutes(7);
+        TemplateEngine engine = new TemplateEngine(
+            System::currentTimeMillis, out -> false, trip);
+
+        // One distinct text per batch slot; cycling 1024 texts through the small LRU always misses
+        String[] distinct = new String[BATCH];
+        for (int i = 0; i < distinct.length; i++) {
+            distinct[i] = "Stop " + i + " at {time}";
+        }
+
+        Report report = new Report();
+        report.results.add(measure("compile", i -> MessageTemplate.compile(TEMPLATE, engine)
+            .hasPlaceholders() ? 1 : 0));
+        report.results.add(measure("renderCached", i -> engine.render(TEMPLATE).length()));
+        report.results.add(measure("renderPlain", i -> engine.render(PLAIN).length()));
+        report.results.add(measure("renderNoCache",
+            i -> engine.render(distinct[i]).length()));
+
+        Result cached = report.get("renderCached");
+        if (cached.meanNanos > config.maxRenderNanos) {
+            report.failures.add(String.format(Locale.ROOT, "renderCached %.0f ns/op > %d ns/op",
+                cached.meanNanos, config.maxRenderNanos));
+        }
+        if (cached.bytesPerOp > config.maxRenderBytes) {
+            report.failures.add(String.format(Locale.ROOT, "renderCached %.0f B/op > %d B/op",
+                cached.bytesPerOp, config.maxRenderBytes));
+        }
+        report.checksum = sink;
+        return report;
+    }
+
+    private Result measure(String name, Op op) {
+        for (int i = 0; i < config.warmupIterations; i++) {
+            iteration(op);
+        }
+
+        double totalNanos = 0;
+        double best = Double.MAX_VALUE;
+        long totalOps = 0;
+        long bytesBefore = allocatedBytes();
+        for (int i = 0; i < config.measureIterations; i++) {
+            long[] opsAndNanos = iteration(op);
+            totalOps += opsAndNanos[0];
+            totalNanos += opsAndNanos[1];
+            best = Math.min(best, opsAndNanos[1] / (double) opsAndNanos[0]);
+        }
+        long bytesAfter = allocatedBytes();
+        return new Result(name, totalNanos / totalOps, best,
+            bytesBefore < 0 ? Double.NaN : (bytesAfter - bytesBefore) / (double) totalOps);
+    }
+
+    /**
+     * Run op in batches until iterationMillis elapse
+     *
+     * @return {ops, elapsed nanos}
+     */
+    private long[] iteration(Op op) {
+        long deadline = System.nanoTime() + config.iterationMillis * 1_000_000L;
+        long ops = 0;
+        long start = System.nanoTime();
+        long now;
+        do {
+            for (int i = 0; i < BATCH; i++) {
+                sink += op.run(i);
+            }
+            ops += BATCH;
+            now = System.nanoTime();
+        } while (now < deadline);
+        return new long[] {ops, now - start};
+    }
+
+    /**
+     * Bytes allocated so far by this thread, or -1 if the JVM can't tell
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads)
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    public static void main(String[] args) {
+        Report report = new TemplateBenchmark(new Config()).run();
+        System.out.print(report);
+        if (!report.failures.isEmpty()) System.exit(1);
+    }
+}
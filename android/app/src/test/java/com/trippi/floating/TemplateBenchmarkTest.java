@@ -0,0 +1,22 @@
+package com.bikemessenger.floating;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Runs the template benchmark and fails on order-of-magnitude render
+ * regressions. Opt-in, as it takes seconds and depends on the machine:
+ * run with -Dbench.enabled=true, tuned with other -Dbench.* properties.
+ */
+public class TemplateBenchmarkTest {
+
+    @Test
+    public void renderStaysWithinTimeAndAllocationBudgets() {
+        Assume.assumeTrue("set -Dbench.enabled=true to run", Boolean.getBoolean("bench.enabled"));
+
+        TemplateBenchmark.Report report = new TemplateBenchmark(new TemplateBenchmark.Config()).run();
+        assertTrue(report.toString(), report.failures.isEmpty());
+    }
+}
@@ -0,0 +1,169 @@
+package com.bikemessenger.floating;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Renders every built-in placeholder against a fake clock, a fake location
+ * source and a private TripCounters.
+ */
+public class TemplateEngineTest {
+
+    // 2023-11-14 22:13:20 UTC
+    private static final long NOW = 1_700_000_000_000L;
+
+    private static final class FakeClock implements TemplateEngine.Clock {
+        long now = NOW;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+    }
+
+    private static final class FakeLocation implements TemplateEngine.LocationSource {
+        double[] fix;
+
+        @Override
+        public boolean lastKnown(double[] out) {
+            if (fix == null) return false;
+            System.arraycopy(fix, 0, out, 0, 3);
+            return true;
+        }
+    }
+
+    private final FakeClock clock = new FakeClock();
+    private final FakeLocation location = new FakeLocation();
+    private final TripCounters trip = new TripCounters();
+    private TemplateEngine engine;
+    private TimeZone defaultZone;
+
+    @Before
+    public void setUp() {
+        defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        engine = new TemplateEngine(clock, location, trip);
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    public void timeIsLocalHoursAndMinutes() {
+        assertEquals("Stopped at 22:13", engine.render("Stopped at {time}"));
+
+        TimeZone.setDefault(TimeZone.getTimeZone("GMT+02:00"));
+        assertEquals("Stopped at 00:13", engine.render("Stopped at {time}"));
+    }
+
+    @Test
+    public void locationAndSpeedComeFromLastFix() {
+        location.fix = new double[] {52.520008, 13.404954, 10.0};
+        assertEquals("52.52001,13.40495", engine.render("{location}"));
+        assertEquals("36 km/h", engine.render("{speed} km/h"));
+    }
+
+    @Test
+    public void locationWithoutFixIsMissing() {
+        assertEquals("-- at --", engine.render("{location} at {speed}"));
+
+        location.fix = new double[] {-33.8688, 151.2093, Double.NaN};
+        assertEquals("-33.86880,151.20930 at --", engine.render("{location} at {speed}"));
+    }
+
+    @Test
+    public void tripCountersFeedDistanceEtaAndSent() {
+        assertEquals("-- / --", engine.render("{distance} / {eta}"));
+
+        trip.setDistanceMeters(12_345);
+        trip.setEtaMinutes(7);
+        trip.onMessageSent();
+        trip.onMessageSent();
+        assertEquals("12.3 km, ETA 7 min, 2 sent",
+            engine.render("{distance} km, ETA {eta}, {sent} sent"));
+    }
+
+    @Test
+    public void elapsedCountsFromTripStart() {
+        assertEquals("--", engine.render("{elapsed}"));
+
+        trip.startTrip(NOW);
+        clock.now = NOW + (2 * 60 + 5) * 60_000L;
+        assertEquals("2:05", engine.render("{elapsed}"));
+    }
+
+    @Test
+    public void plainTextIsReturnedWithoutCopying() {
+        String text = "🛑 Stop";
+        assertSame(text, engine.render(text));
+    }
+
+    @Test
+    public void escapedBracesRenderWithOrWithoutPlaceholders() {
+        assertEquals("Use { only", engine.render("Use {{ only"));
+        assertEquals("Use { and 22:13", engine.render("Use {{ and {time}"));
+        assertEquals("{time} is }", engine.render("{{time}} is }}"));
+    }
+
+    @Test
+    public void precompileAttachesEveryTemplateToTheSnapshot() {
+        List<MessageData> messages = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            messages.add(new MessageData("m" + i, "Stop " + i + " at {time}", "stop", "#FFFFFF"));
+        }
+        MessageSnapshot compiled =
+            engine.precompile(new MessageSnapshot(1, messages), MessageSnapshot.EMPTY);
+
+        // Larger than any cache, and nothing was evicted or cached on the side
+        for (int i = 0; i < compiled.size(); i++) {
+            MessageData msg = compiled.messages.get(i);
+            assertSame(compiled.templateAt(i), compiled.templateFor(msg));
+            assertEquals(msg.text, compiled.templateFor(msg).source);
+        }
+        assertEquals(0, engine.cachedTemplateCount());
+        assertEquals("Stop 999 at 22:13",
+            engine.render(compiled.templateFor(compiled.findById("m999"))));
+    }
+
+    @Test
+    public void precompileReusesTemplatesOfThePreviousSnapshot() {
+        MessageSnapshot first = engine.precompile(new MessageSnapshot(1, Arrays.asList(
+            new MessageData("1", "ETA {eta}", "clock", "#FFFFFF"),
+            new MessageData("2", "🛑 Stop", "stop", "#FFFFFF"))), MessageSnapshot.EMPTY);
+        MessageSnapshot second = engine.precompile(new MessageSnapshot(2, Arrays.asList(
+            new MessageData("2", "🛑 Stop", "stop", "#FFFFFF"),
+            new MessageData("3", "ETA {eta}", "clock", "#FFFFFF"),
+            new MessageData("4", "ETA {eta}", "clock", "#FFFFFF"))), first);
+
+        assertSame(first.templateAt(1), second.templateAt(0));
+        assertSame(first.templateAt(0), second.templateAt(1));
+        assertSame(first.templateAt(0), second.templateAt(2));
+        // Messages of another snapshot have no template here
+        assertNull(second.templateFor(first.messages.get(0)));
+    }
+
+    @Test
+    public void fixedDecimalsRoundWithoutFormat() {
+        StringBuilder out = new StringBuilder();
+        TemplateEngine.appendFixed(out, 1.05, 1);
+        out.append(' ');
+        TemplateEngine.appendFixed(out, -0.004, 2);
+        out.append(' ');
+        TemplateEngine.appendFixed(out, 3.5, 0);
+        out.append(' ');
+        TemplateEngine.appendFixed(out, -2.00501, 3);
+        assertEquals("1.1 0.00 4 -2.005", out.toString());
+    }
+}
@@ -1,7 +1,14 @@
 import { NativeModules, Platform } from 'react-native';
-import { BikeMessage, BikeMessengerNativeModule } from '../types';
+import {
+  BikeMessage,
+  BikeMessengerNativeModule,
+  GestureShortcutMap,
+} from '../types';
 import { serializeMessages } from '../utils/helpers';
 
+// Profile used by startFloating/updateMessages (OverlayProfile.DEFAULT_ID natively)
+const DEFAULT_PROFILE_ID = 'default';
+
 // The native module is registered as 'BikeMessengerModule' on Android
 const NativeBridge: BikeMessengerNativeModule | undefined =
   Platform.OS === 'android'
@@ -10,6 +17,8 @@ const NativeBridge: BikeMessengerNativeModule | undefined =
 
 class FloatingService {
   private isRunning = false;
+  // Profiles started and not yet stopped; the native service stops with the last one
+  private activeProfiles = new Set<string>();
 
   /**
    * Check if the app has overlay permission (Android)
@@ -47,7 +56,10 @@ class FloatingService {
     try {
       const serialized = serializeMessages(messages);
       const success = await NativeBridge.startFloatingWidget(serialized);
-      this.isRunning = success;
+      if (success) {
+        this.activeProfiles.add(DEFAULT_PROFILE_ID);
+      }
+      this.isRunning = this.activeProfiles.size > 0;
       return success;
     } catch (error) {
       console.error('Failed to start floating widget:', error);
@@ -65,7 +77,10 @@ class FloatingService {
 
     try {
       const success = await NativeBridge.stopFloatingWidget();
-      this.isRunning = !success;
+      if (success) {
+        this.activeProfiles.clear();
+        this.isRunning = false;
+      }
       return success;
     } catch (error) {
       console.error('Failed to stop floating widget:', error);
@@ -90,6 +105,125 @@ class FloatingService {
     }
   }
 
+  /**
+   * Start a named overlay profile (e.g. 'group-ride', 'commute') with its own
+   * floating button and messages, alongside any profiles already running
+   */
+  async startProfile(profileId: string, messages: BikeMessage[]): Promise<boolean> {
+    if (Platform.OS !== 'android' || !NativeBridge) {
+      return false;
+    }
+
+    try {
+      const success = await NativeBridge.startProfile(
+        profileId,
+        serializeMessages(messages),
+      );
+      if (success) {
+        this.activeProfiles.add(profileId);
+        this.isRunning = true;
+      }
+      return success;
+    } catch (error) {
+      console.error(`Failed to start floating profile ${profileId}:`, error);
+      return false;
+    }
+  }
+
+  /**
+   * Remove one overlay profile; the native service stops with the last one,
+   * after which getIsRunning() reports false
+   */
+  async stopProfile(profileId: string): Promise<boolean> {
+    if (Platform.OS !== 'android' || !NativeBridge || !this.isRunning) {
+      return false;
+    }
+
+    try {
+      const success = await NativeBridge.stopProfile(profileId);
+      if (success) {
+        this.activeProfiles.delete(profileId);
+        this.isRunning = this.activeProfiles.size > 0;
+      }
+      return success;
+    } catch (error) {
+      console.error(`Failed to stop floating profile ${profileId}:`, error);
+      return false;
+    }
+  }
+
+  /**
+   * Update messages of one running overlay profile
+   */
+  async updateProfileMessages(
+    profileId: string,
+    messages: BikeMessage[],
+  ): Promise<boolean> {
+    if (
+      Platform.OS !== 'android' ||
+      !NativeBridge ||
+      !this.activeProfiles.has(profileId)
+    ) {
+      return false;
+    }
+
+    try {
+      return await NativeBridge.updateProfileMessages(
+        profileId,
+        serializeMessages(messages),
+      );
+    } catch (error) {
+      console.error(`Failed to update floating profile ${profileId}:`, error);
+      return false;
+    }
+  }
+
+  /**
+   * Map floating button gestures to messages for zero-menu quick sends.
+   * Stored natively, so it can be set before the widget is started.
+   */
+  async setGestureShortcuts(shortcuts: GestureShortcutMap): Promise<boolean> {
+    if (Platform.OS !== 'android' || !NativeBridge) {
+      return false;
+    }
+
+    try {
+      return await NativeBridge.setGestureShortcuts(JSON.stringify(shortcuts));
+    } catch (error) {
+      console.error('Failed to set gesture shortcuts:', error);
+      return false;
+    }
+  }
+
+  /**
+   * Tell the native overlay an alert arrived from another rider
+   * (updates the notification and the floating button's unread badge)
+   */
+  notifyMessageReceived(messageText: string): void {
+    if (Platform.OS === 'android' && NativeBridge && this.isRunning) {
+      NativeBridge.notifyMessageReceived(messageText);
+    }
+  }
+
+  /**
+   * Reset native trip counters used by message templates ({elapsed}, {sent})
+   */
+  startTrip(): void {
+    if (Platform.OS === 'android' && NativeBridge) {
+      NativeBridge.startTrip();
+    }
+  }
+
+  /**
+   * Push live trip values for templates like "ETA {eta}" or
+   * "Fuel at {distance} km". Use -1 for unknown values.
+   */
+  updateTripCounters(distanceKm: number, etaMinutes: number): void {
+    if (Platform.OS === 'android' && NativeBridge) {
+      NativeBridge.updateTripCounters(distanceKm, etaMinutes);
+    }
+  }
+
   /**
    * Minimize the React Native activity (go to background)
    */
@@ -65,11 +65,29 @@ export interface BikeMessengerNativeModule {
   startFloatingWidget(messages: string): Promise<boolean>;
   stopFloatingWidget(): Promise<boolean>;
   updateMessages(messages: string): Promise<boolean>;
+  startProfile(profileId: string, messages: string): Promise<boolean>;
+  stopProfile(profileId: string): Promise<boolean>;
+  updateProfileMessages(profileId: string, messages: string): Promise<boolean>;
+  setGestureShortcuts(shortcuts: string): Promise<boolean>;
+  notifyMessageReceived(messageText: string): void;
+  startTrip(): void;
+  updateTripCounters(distanceKm: number, etaMinutes: number): void;
   checkOverlayPermission(): Promise<boolean>;
   requestOverlayPermission(): void;
   minimizeApp(): void;
 }
 
+// Gestures on the floating button that send a message without opening the menu
+export type GestureShortcut =
+  | 'swipe_left'
+  | 'swipe_right'
+  | 'swipe_up'
+  | 'swipe_down'
+  | 'long_press';
+
+// Gesture -> message id
+export type GestureShortcutMap = Partial<Record<GestureShortcut, string>>;
+
 export type EditMode = 'text' | 'icon' | 'color' | null;
 
 export interface DragInfo {